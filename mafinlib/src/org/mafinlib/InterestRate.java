@@ -12,6 +12,7 @@
 package org.mafinlib;
 
 import org.mafinlib.library.exceptions.LibraryException;
+import org.mafinlib.math.adjoint.ADouble;
 import org.mafinlib.time.Date;
 import org.mafinlib.time.DayCounter;
 import org.mafinlib.time.Frequency;
@@ -64,7 +65,8 @@ public class InterestRate {
 		this.comp = comp;
 		this.freqMakesSense = false;
 
-		if (this.comp == Compounding.Compounded || this.comp == Compounding.SimpleThenCompounded) {
+		if (this.comp == Compounding.Compounded || this.comp == Compounding.SimpleThenCompounded
+				|| this.comp == Compounding.CompoundedThenSimple) {
 			freqMakesSense = true;
 			MFL.require(freq != Frequency.Once && freq != Frequency.NoFrequency ,
 					"frequency not allowed for this interest rate");
@@ -206,6 +208,191 @@ public class InterestRate {
 		
 	}
 	
+	/**
+	 * Compound factors implied by the rate compounded at the given times, written into out.
+	 * The compounding convention is resolved once for the whole array and, for compounded
+	 * rates, <code>(1+r/f)^(f*t)</code> is computed as <code>exp(f*log1p(r/f)*t)</code>, so that
+	 * the results agree with {@link #compoundFactor(double)} up to rounding.
+	 * 
+	 * @param t the times, measured using InterestRate's own day counter
+	 * @param out receives the compound factors, it can be <code>t</code> itself
+	 * @return out
+	 */
+	public final double[] compoundFactors(final double[] t, final double[] out){
+		checkTimes(t, out);
+		final double r = rate;
+		final int n = t.length;
+		
+		switch(comp){
+			case Simple:
+				for (int i = 0; i < n; i++) {
+					out[i] = 1.0 + r * t[i];
+				}
+				break;
+				
+			case Compounded: {
+				final double logFactor = freq * Math.log1p(r / freq);
+				for (int i = 0; i < n; i++) {
+					out[i] = Math.exp(logFactor * t[i]);
+				}
+				break;
+			}
+			
+			case Continuous:
+				for (int i = 0; i < n; i++) {
+					out[i] = Math.exp(r * t[i]);
+				}
+				break;
+				
+			case SimpleThenCompounded: {
+				final double logFactor = freq * Math.log1p(r / freq);
+				final double period = 1 / (double) freq;
+				for (int i = 0; i < n; i++) {
+					final double ti = t[i];
+					out[i] = ti <= period ? 1.0 + r * ti : Math.exp(logFactor * ti);
+				}
+				break;
+			}
+			
+			case CompoundedThenSimple: {
+				final double logFactor = freq * Math.log1p(r / freq);
+				final double period = 1 / (double) freq;
+				for (int i = 0; i < n; i++) {
+					final double ti = t[i];
+					out[i] = ti > period ? 1.0 + r * ti : Math.exp(logFactor * ti);
+				}
+				break;
+			}
+			
+			default:
+				throw new LibraryException("unknown compounding convention");
+		}
+		return out;
+	}
+	
+	/**
+	 * Discount factors implied by the rate compounded at the given times, written into out.
+	 * 
+	 * @param t the times, measured using InterestRate's own day counter
+	 * @param out receives the discount factors, it can be <code>t</code> itself
+	 * @return out
+	 * @see #compoundFactors(double[], double[])
+	 */
+	public final double[] discountFactors(final double[] t, final double[] out){
+		checkTimes(t, out);
+		final double r = rate;
+		final int n = t.length;
+		
+		switch(comp){
+			case Simple:
+				for (int i = 0; i < n; i++) {
+					out[i] = 1.0 / (1.0 + r * t[i]);
+				}
+				break;
+				
+			case Compounded: {
+				final double logFactor = -freq * Math.log1p(r / freq);
+				for (int i = 0; i < n; i++) {
+					out[i] = Math.exp(logFactor * t[i]);
+				}
+				break;
+			}
+			
+			case Continuous:
+				for (int i = 0; i < n; i++) {
+					out[i] = Math.exp(-r * t[i]);
+				}
+				break;
+				
+			case SimpleThenCompounded: {
+				final double logFactor = -freq * Math.log1p(r / freq);
+				final double period = 1 / (double) freq;
+				for (int i = 0; i < n; i++) {
+					final double ti = t[i];
+					out[i] = ti <= period ? 1.0 / (1.0 + r * ti) : Math.exp(logFactor * ti);
+				}
+				break;
+			}
+			
+			case CompoundedThenSimple: {
+				final double logFactor = -freq * Math.log1p(r / freq);
+				final double period = 1 / (double) freq;
+				for (int i = 0; i < n; i++) {
+					final double ti = t[i];
+					out[i] = ti > period ? 1.0 / (1.0 + r * ti) : Math.exp(logFactor * ti);
+				}
+				break;
+			}
+			
+			default:
+				throw new LibraryException("unknown compounding convention");
+		}
+		return out;
+	}
+	
+	/**
+	 * The checks of {@link #compoundFactor(double)}, done once for the whole array
+	 */
+	private void checkTimes(final double[] t, final double[] out){
+		MFL.require(out.length >= t.length, "output array shorter than the input");
+		MFL.require(!Double.isNaN(rate) , "null interest rate");
+		double min = 0.0;
+		for (int i = 0; i < t.length; i++) {
+			min = Math.min(min, t[i]);
+		}
+		MFL.require(min >= 0.0 , "negative time not allowed");
+	}
+	
+	/**
+	 * Compound factor at time t of an active value of the rate, with the conventions of this one.
+	 * The factor is recorded on the tape of the current thread, so that its adjoint gives the sensitivity
+	 * to the rate.
+	 * 
+	 * @param t the time, measured using InterestRate's own day counter
+	 * @param r the active value of the rate
+	 * @return the compound factor
+	 * @see #compoundFactor(double)
+	 */
+	public final ADouble compoundFactor(final double t, final ADouble r){
+		MFL.require(t >= 0.0 , "negative time not allowed");
+		MFL.require(!Double.isNaN(r.value()) , "null interest rate");
+		
+		switch(comp){
+			case Simple:
+				return r.mul(t).add(1.0);
+			case Compounded:
+				return r.div(freq).log1p().mul(freq * t).exp();
+			case Continuous:
+				return r.mul(t).exp();
+			case SimpleThenCompounded:
+				if(t <= 1.0 / (double) freq){
+					return r.mul(t).add(1.0);
+				}else{
+					return r.div(freq).log1p().mul(freq * t).exp();
+				}
+			case CompoundedThenSimple:
+				if(t > 1.0 / (double) freq){
+					return r.mul(t).add(1.0);
+				}else{
+					return r.div(freq).log1p().mul(freq * t).exp();
+				}
+			default:
+				throw new LibraryException("unknown compounding convention");
+		}
+	}
+	
+	/**
+	 * Discount factor at time t of an active value of the rate, with the conventions of this one.
+	 * 
+	 * @param t the time, measured using InterestRate's own day counter
+	 * @param r the active value of the rate
+	 * @return the discount factor
+	 * @see #compoundFactor(double, ADouble)
+	 */
+	public final ADouble discountFactor(final double t, final ADouble r){
+		return compoundFactor(t, r).inverse();
+	}
+	
 	/**
 	 * 
 	 * @param c
@@ -276,7 +463,7 @@ public class InterestRate {
 					r = (compound - 1.0)/t;
 					break;
 				case Compounded:
-					r = (Math.pow(compound, 1 / (f * t) - 1.0) - 1)*(f);
+					r = (Math.pow(compound, 1 / (f * t)) - 1)*(f);
 					break;
 				case Continuous:
 					r = Math.log(compound) / t;
@@ -285,14 +472,14 @@ public class InterestRate {
 					if(t <= 1.0 / f){
 						r = (compound - 1.0)/t;
 					}else{
-						r = (Math.pow(compound, 1 / (f * t) - 1.0) - 1)*(f);
+						r = (Math.pow(compound, 1 / (f * t)) - 1)*(f);
 					}
 					break;
 				case CompoundedThenSimple:
 					if(t > 1.0 / f){
 						r = (compound - 1.0)/t;
 					}else{
-						r = (Math.pow(compound, 1 / (f * t) - 1.0) - 1)*(f);
+						r = (Math.pow(compound, 1 / (f * t)) - 1)*(f);
 					}
 					break;
 				default:
@@ -1,5 +1,7 @@
 package org.mafinlib;
 
+import org.mafinlib.patterns.ObservableInterface;
+import org.mafinlib.patterns.ObservableValue;
 import org.mafinlib.time.Date;
 
 /**
@@ -9,7 +11,7 @@ import org.mafinlib.time.Date;
  */
 public class Settings {
 	
-	private DateProxy evaluationDate;
+	private final DateProxy evaluationDate;
 	private boolean includeReferenceDateEvents;
 	private boolean includeTodaysCashFlows;
 	private boolean enforcesTodaysHistoricFixings;
@@ -19,7 +21,7 @@ public class Settings {
      * @return the value of field evaluationDate
      */
     public Date evaluationDate() {
-    	return null;
+    	return evaluationDate.value();
     }
     
     /**
@@ -30,7 +32,18 @@ public class Settings {
      * listeners.
      */
     public Date setEvaluationDate(final Date evaluationDate) {
-        return null;
+        this.evaluationDate.assign(evaluationDate);
+        return evaluationDate;
+    }
+    
+    /**
+     * Dates are not observable. Objects depending on the evaluation date register
+     * with the returned notifier, which is notified each time the evaluation date changes.
+     * 
+     * @return the observable holding the evaluation date
+     */
+    public ObservableInterface evaluationDateNotifier() {
+    	return evaluationDate;
     }
     
 
@@ -40,8 +53,8 @@ public class Settings {
      */
     public void anchorEvaluationDate(){
     	// set to today's date if not already set.
-    	if((evaluationDate.value()).eq(new Date())){
-    		evaluationDate = (DateProxy) Date.todaysDate();
+    	if(evaluationDate.isNull()){
+    		evaluationDate.assign(Date.todaysDate());
     	}
     	// If set, no-op since the date is already anchored.
     }
@@ -52,7 +65,7 @@ public class Settings {
      * since the evaluation date is re-evaluated each time it is read. 
      */
     public void resetEvaluationDate(){
-    	evaluationDate = (DateProxy) new Date();
+    	evaluationDate.assign(new Date());
     }
     
 	/**
@@ -133,11 +146,19 @@ public class Settings {
 
     
 	private Settings(){
+		this.evaluationDate = new DateProxy();
 		this.includeReferenceDateEvents = false;
 		this.enforcesTodaysHistoricFixings = false;
 	}
 	
-	public static synchronized Settings instance(){
+	/**
+	 * @return the settings of the session of the current thread, if any, or the global ones
+	 */
+	public static Settings instance(){
+		final Settings session = sessions.get();
+		if(session != null){
+			return session;
+		}
 		if(instance == null){
 			synchronized(Settings.class){
 				if (instance == null) {
@@ -149,18 +170,66 @@ public class Settings {
 	}
 	//End thread safe Singleton pattern implementation
 	
-	private static class DateProxy extends Date {
+	
+	//Begin per-thread sessions
+	private static final ThreadLocal<Settings> sessions = new ThreadLocal<Settings>();
+	
+	/**
+	 * Gives the current thread its own settings, a copy of the global ones, which <i><b>instance</b></i>
+	 * returns until <i><b>endSession</b></i> is called. Threads pricing private copies of the market,
+	 * e.g. scenario workers, can then change the evaluation date without affecting one another.
+	 * A null global evaluation date is copied as today's date.
+	 * 
+	 * @return the settings of the session
+	 */
+	public static Settings beginSession(){
+		MFL.require(sessions.get() == null, "a session is already open in this thread");
+		final Settings global = instance();
+		final Settings session = new Settings();
+		session.evaluationDate.assign(global.evaluationDate());
+		session.includeReferenceDateEvents = global.includeReferenceDateEvents;
+		session.includeTodaysCashFlows = global.includeTodaysCashFlows;
+		session.enforcesTodaysHistoricFixings = global.enforcesTodaysHistoricFixings;
+		sessions.set(session);
+		return session;
+	}
+	
+	/**
+	 * Closes the session of the current thread, if any, which goes back to the global settings.
+	 */
+	public static void endSession(){
+		sessions.remove();
+	}
+	//End per-thread sessions
+	
+	/**
+	 * Observable holder of the evaluation date. A null date stands for today's date.
+	 */
+	private static class DateProxy extends ObservableValue<Date> {
 
 		// outside world cannot instantiate
 		private DateProxy() {
-			super();
+			super(new Date());
+		}
+
+		@Override
+		public Date value() /* @ReadOnly */ {
+			final Date d = super.value();
+			return d.isNull() ? Date.todaysDate() : d;
 		}
 
-		private DateProxy value() /* @ReadOnly */ {
-			if (isNull()) {
-				super.assign(todaysSerialNumber());
+		/**
+		 * Observers are notified only when the date actually changes.
+		 */
+		@Override
+		public void assign(final Date d) {
+			if (super.value().ne(d)) {
+				super.assign(d);
 			}
-			return this;
+		}
+
+		private boolean isNull() {
+			return super.value().isNull();
 		}
 
 	}	
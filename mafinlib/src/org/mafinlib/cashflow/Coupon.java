@@ -91,19 +91,20 @@ public abstract class Coupon extends Cashflow{
 				  final Date refPeriodEnd,
 				  final Date exCouponDate) {
 		
-		this.paymentDate = paymentDate;
+		// dates are stored as canonical instances, shared by all the coupons
+		this.paymentDate = paymentDate.intern();
 		this.nominal = nominal;
-		this.accrualStartDate = accrualStartDate;
-		this.accrualEndDate = accrualEndDate;
-		this.refPeriodStart = refPeriodStart;
-		this.refPeriodEnd = refPeriodEnd;
-		this.exCouponDate = exCouponDate;
+		this.accrualStartDate = accrualStartDate.intern();
+		this.accrualEndDate = accrualEndDate.intern();
+		this.refPeriodStart = refPeriodStart.intern();
+		this.refPeriodEnd = refPeriodEnd.intern();
+		this.exCouponDate = exCouponDate.intern();
 		this.accrualPeriod = Double.NaN;
 		
-		if(refPeriodStart.eq(new Date()))
+		if(refPeriodStart.isNull())
 			this.refPeriodStart =this.accrualStartDate;
 		
-		if(refPeriodEnd.eq(new Date()))
+		if(refPeriodEnd.isNull())
 			this.refPeriodEnd = this.accrualEndDate;
 	}
 	
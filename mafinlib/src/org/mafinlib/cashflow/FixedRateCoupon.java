@@ -13,6 +13,7 @@ package org.mafinlib.cashflow;
 
 import org.mafinlib.InterestRate;
 import org.mafinlib.InterestRate.Compounding;
+import org.mafinlib.math.adjoint.ADouble;
 import org.mafinlib.patterns.PolymorphicVisitorInterface;
 import org.mafinlib.patterns.VisitorInterface;
 import org.mafinlib.time.Date;
@@ -67,6 +68,22 @@ public class FixedRateCoupon extends Coupon{
 														this.refPeriodEnd) - 1.0);
 	}
 	
+	/**
+	 * Amount of the coupon for an active value of its rate, recorded on the tape of the current
+	 * thread so that its adjoint gives the sensitivity to the rate. The year fraction is a constant
+	 * of the calculation.
+	 * 
+	 * @param rate the active value of the rate
+	 * @return the amount
+	 */
+	public ADouble amount(final ADouble rate) {
+		final double t = this.rate.dayCounter().yearFraction(this.accrualStartDate,
+															  this.accrualEndDate,
+															  this.refPeriodEnd,
+															  this.refPeriodEnd);
+		return this.rate.compoundFactor(t, rate).sub(1.0).mul(this.nominal());
+	}
+	
 	@Override
 	public double accruedAmount(Date date) {
 		
@@ -0,0 +1,157 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.math.adjoint;
+
+/**
+ * Active double, for reverse-mode automatic differentiation
+ *
+ * An ADouble is an immutable value which may be active, i.e. recorded on the {@link Tape} of the current thread.
+ * Inputs are made active by {@link Tape#register(double)}; operations with at least one active operand record
+ * their partial derivatives on the tape and return an active result, while operations on passive numbers only
+ * compute the value.
+ *
+ * @see Tape
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class ADouble {
+
+	public static final ADouble ZERO = new ADouble(0.0, -1);
+	public static final ADouble ONE = new ADouble(1.0, -1);
+
+	final double value;
+	// node on the tape of the current thread, -1 for passive numbers
+	final int index;
+
+
+	//constructor
+	ADouble(final double value, final int index){
+		this.value = value;
+		this.index = index;
+	}
+
+
+	//public static methods
+	/**
+	 * @param value
+	 * @return a passive number, i.e. a constant of the calculation
+	 */
+	public static ADouble of(final double value){
+		return new ADouble(value, -1);
+	}
+
+
+	//public methods
+	public double value(){
+		return value;
+	}
+
+	/**
+	 * @return true if the number is recorded on the tape
+	 */
+	public boolean isActive(){
+		return index >= 0;
+	}
+
+	public ADouble add(final ADouble another){
+		return binary(value + another.value, another, 1.0, 1.0);
+	}
+
+	public ADouble add(final double another){
+		return unary(value + another, 1.0);
+	}
+
+	public ADouble sub(final ADouble another){
+		return binary(value - another.value, another, 1.0, -1.0);
+	}
+
+	public ADouble sub(final double another){
+		return unary(value - another, 1.0);
+	}
+
+	public ADouble mul(final ADouble another){
+		return binary(value * another.value, another, another.value, value);
+	}
+
+	public ADouble mul(final double another){
+		return unary(value * another, another);
+	}
+
+	public ADouble div(final ADouble another){
+		final double result = value / another.value;
+		return binary(result, another, 1.0 / another.value, -result / another.value);
+	}
+
+	public ADouble div(final double another){
+		return unary(value / another, 1.0 / another);
+	}
+
+	public ADouble negative(){
+		return unary(-value, -1.0);
+	}
+
+	/**
+	 * @return 1 / this
+	 */
+	public ADouble inverse(){
+		final double result = 1.0 / value;
+		return unary(result, -result * result);
+	}
+
+	public ADouble exp(){
+		final double result = Math.exp(value);
+		return unary(result, result);
+	}
+
+	public ADouble log(){
+		return unary(Math.log(value), 1.0 / value);
+	}
+
+	public ADouble log1p(){
+		return unary(Math.log1p(value), 1.0 / (1.0 + value));
+	}
+
+	public ADouble sqrt(){
+		final double result = Math.sqrt(value);
+		return unary(result, 0.5 / result);
+	}
+
+	/**
+	 * @param exponent a constant exponent
+	 * @return this raised to the given power
+	 */
+	public ADouble pow(final double exponent){
+		final double result = Math.pow(value, exponent);
+		return unary(result, exponent * Math.pow(value, exponent - 1.0));
+	}
+
+	@Override
+	public String toString(){
+		return Double.toString(value);
+	}
+
+
+	//private methods
+	private ADouble unary(final double result, final double partial){
+		if(index < 0)
+			return new ADouble(result, -1);
+		return new ADouble(result, Tape.current().record(index, partial, -1, 0.0));
+	}
+
+	private ADouble binary(final double result, final ADouble another, final double partial, final double anotherPartial){
+		if(index < 0 && another.index < 0)
+			return new ADouble(result, -1);
+		return new ADouble(result, Tape.current().record(index, partial, another.index, anotherPartial));
+	}
+
+}
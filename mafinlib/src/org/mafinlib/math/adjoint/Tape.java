@@ -0,0 +1,235 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.math.adjoint;
+
+import java.util.Arrays;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+
+/**
+ * Tape of the operations on active numbers, for reverse-mode automatic differentiation
+ *
+ * Every operation on an {@link ADouble} with at least one active operand appends a node to the tape of the
+ * current thread. A node stores the indexes of at most two parents and the partial derivatives of its value
+ * with respect to them, in primitive arrays which grow as needed, so that recording allocates nothing but the
+ * ADouble holding the result.
+ *
+ * A single backward sweep, <i><b>computeAdjoints</b></i>, then gives the derivatives of one output with respect
+ * to every input registered on the tape, at a cost proportional to the number of recorded operations.
+ *
+ * The typical use is
+ * <pre>
+ * Tape tape = Tape.current();
+ * tape.clear();
+ * ADouble x = tape.register(1.5);
+ * ADouble y = x.mul(x).exp();
+ * tape.computeAdjoints(y);
+ * double dydx = tape.adjoint(x);
+ * </pre>
+ *
+ * A tape is only used by the thread owning it, and active numbers must not be passed between threads.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class Tape {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private static final ThreadLocal<Tape> current = new ThreadLocal<Tape>(){
+		@Override
+		protected Tape initialValue(){
+			return new Tape();
+		}
+	};
+
+	// two parents and two partial derivatives per node, -1 standing for no parent
+	private int[] parents;
+	private double[] partials;
+	private double[] adjoints;
+	private int size;
+	// number of nodes covered by the last sweep, -1 if the adjoints are not valid
+	private int swept;
+
+
+	//constructor
+	private Tape(){
+		this.parents = new int[2 * INITIAL_CAPACITY];
+		this.partials = new double[2 * INITIAL_CAPACITY];
+		this.adjoints = new double[INITIAL_CAPACITY];
+		this.size = 0;
+		this.swept = -1;
+	}
+
+
+	//public static methods
+	/**
+	 * @return the tape of the current thread
+	 */
+	public static Tape current(){
+		return current.get();
+	}
+
+
+	//public methods
+	/**
+	 * @param value
+	 * @return a new input of the calculation, whose adjoint is available after <i><b>computeAdjoints</b></i>
+	 */
+	public ADouble register(final double value){
+		return new ADouble(value, record(-1, 0.0, -1, 0.0));
+	}
+
+	/**
+	 * @param values
+	 * @return new inputs of the calculation, one for each value
+	 */
+	public ADouble[] register(final double[] values){
+		final ADouble[] result = new ADouble[values.length];
+		for(int i = 0; i < values.length; i++){
+			result[i] = register(values[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Records an elementary operation with known partial derivatives, e.g. an interpolation, so that it
+	 * takes a single node instead of the several ones of the equivalent sequence of ADouble operations.
+	 *
+	 * @param value the value of the result
+	 * @param a the first operand
+	 * @param da the derivative of the result with respect to a
+	 * @param b the second operand, or null
+	 * @param db the derivative of the result with respect to b
+	 * @return the result, passive if no operand is active
+	 */
+	public ADouble record(final double value, final ADouble a, final double da, final ADouble b, final double db){
+		final int ia = a.index;
+		final int ib = b == null ? -1 : b.index;
+		if(ia < 0 && ib < 0)
+			return new ADouble(value, -1);
+		return new ADouble(value, record(ia, da, ib, db));
+	}
+
+	/**
+	 * @return the number of recorded nodes
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Forgets every node, invalidating the active numbers recorded so far.
+	 */
+	public void clear(){
+		size = 0;
+		swept = -1;
+	}
+
+	/**
+	 * Forgets the nodes recorded after the given size, e.g. to reuse the nodes of a curve for several
+	 * instruments.
+	 *
+	 * @param size as returned by <i><b>size</b></i>
+	 */
+	public void rewind(final int size){
+		MFL.require(size >= 0 && size <= this.size, "invalid tape position");
+		this.size = size;
+		swept = -1;
+	}
+
+	/**
+	 * Computes the adjoints, i.e. the derivatives of the given output with respect to all the nodes
+	 * recorded before it, by a single backward sweep.
+	 *
+	 * @param output
+	 */
+	public void computeAdjoints(final ADouble output){
+		final int last = output.index;
+		if(last >= size)
+			throw new LibraryException("active number not recorded on the tape of this thread");
+		Arrays.fill(adjoints, 0, size, 0.0);
+		if(last < 0){
+			swept = size;
+			return;
+		}
+		adjoints[last] = 1.0;
+		for(int i = last; i >= 0; i--){
+			final double adjoint = adjoints[i];
+			if(adjoint == 0.0)
+				continue;
+			final int p1 = parents[2 * i];
+			if(p1 >= 0){
+				adjoints[p1] += adjoint * partials[2 * i];
+			}
+			final int p2 = parents[2 * i + 1];
+			if(p2 >= 0){
+				adjoints[p2] += adjoint * partials[2 * i + 1];
+			}
+		}
+		swept = size;
+	}
+
+	/**
+	 * @param x an active number recorded before the output
+	 * @return the derivative of the output of the last sweep with respect to x, 0 for passive numbers
+	 */
+	public double adjoint(final ADouble x){
+		if(swept < 0)
+			throw new LibraryException("adjoints not computed");
+		final int i = x.index;
+		if(i >= swept)
+			throw new LibraryException("active number recorded after the last sweep");
+		return i < 0 ? 0.0 : adjoints[i];
+	}
+
+	/**
+	 * @param x active numbers recorded before the output
+	 * @param out receives the adjoints
+	 * @return out
+	 */
+	public double[] adjoints(final ADouble[] x, final double[] out){
+		MFL.require(out.length >= x.length, "output array shorter than the input");
+		for(int i = 0; i < x.length; i++){
+			out[i] = adjoint(x[i]);
+		}
+		return out;
+	}
+
+
+	//package-private methods
+	/**
+	 * @return the index of the new node
+	 */
+	int record(final int p1, final double d1, final int p2, final double d2){
+		if(size == adjoints.length){
+			grow();
+		}
+		final int i = size++;
+		parents[2 * i] = p1;
+		partials[2 * i] = d1;
+		parents[2 * i + 1] = p2;
+		partials[2 * i + 1] = d2;
+		return i;
+	}
+
+
+	//private methods
+	private void grow(){
+		final int capacity = 2 * adjoints.length;
+		parents = Arrays.copyOf(parents, 2 * capacity);
+		partials = Arrays.copyOf(partials, 2 * capacity);
+		adjoints = Arrays.copyOf(adjoints, capacity);
+	}
+
+}
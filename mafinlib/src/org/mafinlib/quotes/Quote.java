@@ -30,13 +30,13 @@ public abstract class Quote implements ObservableInterface {
 	 * 
 	 * @return Returns the current value;
 	 */
-	abstract double value();
+	public abstract double value();
 	
 	/**
 	 * Returns true if the Quote holds a valid value
 	 * @return 
 	 */
-	abstract boolean isValid();
+	public abstract boolean isValid();
 	
 	
 	private final ObservableInterface myObservable = new Observable(this);
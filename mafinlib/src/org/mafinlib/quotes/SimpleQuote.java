@@ -64,12 +64,12 @@ public class SimpleQuote extends Quote{
 	
 	//Overrides Quote
 	@Override
-	double value() {
+	public double value() {
 		return this.value;
 	}
 
 	@Override
-	boolean isValid() {
+	public boolean isValid() {
 		return !Double.isNaN(value);
 	}
 
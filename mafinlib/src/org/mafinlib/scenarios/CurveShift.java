@@ -0,0 +1,166 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.scenarios;
+
+import org.mafinlib.MFL;
+import org.mafinlib.termstructures.DiscountCurve;
+
+/**
+ * Shift of the continuously-compounded zero rates of a curve, as a function of time
+ *
+ * A shift is applied at the pillars of a {@link DiscountCurve}, whose discount factors are multiplied by
+ * <code>exp(-s(t) t)</code>; the shifted curve keeps the pillar times and the interpolation of the original one.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public abstract class CurveShift {
+
+	//public static methods
+	/**
+	 * @param size the shift of all the zero rates, e.g. 0.0001 for one basis point
+	 * @return a parallel shift
+	 */
+	public static CurveShift parallel(final double size){
+		return new Parallel(size);
+	}
+
+	/**
+	 * Key-rate shift: the shift is the given size at the pillar time and decreases linearly to zero at the
+	 * start and end times, so that the bucketed shifts of consecutive pillars add up to a parallel one.
+	 *
+	 * @param start the time at which the shift starts, the previous pillar
+	 * @param pillar the time of the full shift
+	 * @param end the time at which the shift ends, the next pillar
+	 * @param size
+	 * @return a bucketed shift
+	 */
+	public static CurveShift bucket(final double start, final double pillar, final double end, final double size){
+		MFL.require(start <= pillar && pillar <= end, "bucket times must be sorted");
+		return new Bucket(start, pillar, end, size);
+	}
+
+	/**
+	 * The shift is the first size up to the first time, the second size from the second time, and linear in between.
+	 *
+	 * @param t1
+	 * @param size1 the shift of the short end, e.g. -0.0010
+	 * @param t2
+	 * @param size2 the shift of the long end, e.g. 0.0010
+	 * @return a twist
+	 */
+	public static CurveShift twist(final double t1, final double size1, final double t2, final double size2){
+		MFL.require(t1 < t2, "twist times must be increasing");
+		return new Twist(t1, size1, t2, size2);
+	}
+
+
+	//public methods
+	/**
+	 * @param t the time from the reference date of the curve
+	 * @return the shift of the continuously-compounded zero rate at time t
+	 */
+	public abstract double shift(double t);
+
+	/**
+	 * @param curve
+	 * @return a new curve with the pillars of the given one and shifted discount factors
+	 */
+	public DiscountCurve apply(final DiscountCurve curve){
+		final double[] times = curve.times();
+		final double[] discounts = curve.data();
+		for(int i = 1; i < times.length; i++){
+			discounts[i] *= Math.exp(-shift(times[i]) * times[i]);
+		}
+		final DiscountCurve shifted = new DiscountCurve(curve.referenceDate(), times, discounts, curve.dayCounter());
+		if(curve.allowsExtrapolation()){
+			shifted.enableExtrapolation();
+		}
+		return shifted;
+	}
+
+
+	//private inner classes
+	private static final class Parallel extends CurveShift {
+
+		private final double size;
+
+		private Parallel(final double size){
+			this.size = size;
+		}
+
+		@Override
+		public double shift(final double t){
+			return size;
+		}
+
+		@Override
+		public String toString(){
+			return "parallel " + size;
+		}
+	}
+
+	private static final class Bucket extends CurveShift {
+
+		private final double start, pillar, end, size;
+
+		private Bucket(final double start, final double pillar, final double end, final double size){
+			this.start = start;
+			this.pillar = pillar;
+			this.end = end;
+			this.size = size;
+		}
+
+		@Override
+		public double shift(final double t){
+			if(t < start || t > end)
+				return 0.0;
+			if(t < pillar)
+				return size * (t - start) / (pillar - start);
+			if(t > pillar)
+				return size * (end - t) / (end - pillar);
+			return size;
+		}
+
+		@Override
+		public String toString(){
+			return "bucket " + size + " at " + pillar + " [" + start + ", " + end + "]";
+		}
+	}
+
+	private static final class Twist extends CurveShift {
+
+		private final double t1, size1, t2, size2;
+
+		private Twist(final double t1, final double size1, final double t2, final double size2){
+			this.t1 = t1;
+			this.size1 = size1;
+			this.t2 = t2;
+			this.size2 = size2;
+		}
+
+		@Override
+		public double shift(final double t){
+			if(t <= t1)
+				return size1;
+			if(t >= t2)
+				return size2;
+			return size1 + (size2 - size1) * (t - t1) / (t2 - t1);
+		}
+
+		@Override
+		public String toString(){
+			return "twist " + size1 + " at " + t1 + ", " + size2 + " at " + t2;
+		}
+	}
+
+}
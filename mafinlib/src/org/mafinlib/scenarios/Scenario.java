@@ -0,0 +1,82 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.scenarios;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mafinlib.MFL;
+
+/**
+ * Market scenario: a set of curve shifts, keyed by the names under which the curves are given to the
+ * {@link ScenarioEngine}. Curves without a shift are left unchanged, so a scenario without shifts
+ * gives the base values.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class Scenario {
+
+	private final String name;
+	private final Map<String, CurveShift> shifts;
+
+
+	//constructors
+	/**
+	 * Scenario leaving the market unchanged
+	 *
+	 * @param name
+	 */
+	public Scenario(final String name){
+		this(name, Collections.<String, CurveShift>emptyMap());
+	}
+
+	/**
+	 * @param name
+	 * @param curve the name of the shifted curve
+	 * @param shift
+	 */
+	public Scenario(final String name, final String curve, final CurveShift shift){
+		this(name, Collections.singletonMap(curve, shift));
+	}
+
+	/**
+	 * @param name
+	 * @param shifts the shifts, keyed by curve name
+	 */
+	public Scenario(final String name, final Map<String, CurveShift> shifts){
+		MFL.require(name != null, "null scenario name");
+		MFL.require(shifts != null, "null shifts");
+		this.name = name;
+		this.shifts = Collections.unmodifiableMap(new LinkedHashMap<String, CurveShift>(shifts));
+	}
+
+
+	//public methods
+	public String name(){
+		return name;
+	}
+
+	/**
+	 * @return the shifts, keyed by curve name
+	 */
+	public Map<String, CurveShift> shifts(){
+		return shifts;
+	}
+
+	@Override
+	public String toString(){
+		return name + " " + shifts;
+	}
+
+}
@@ -0,0 +1,278 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.scenarios;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import org.mafinlib.MFL;
+import org.mafinlib.Settings;
+import org.mafinlib.instruments.Instrument;
+import org.mafinlib.library.exceptions.LibraryException;
+import org.mafinlib.termstructures.DiscountCurve;
+import org.mafinlib.termstructures.YieldTermStructure;
+import org.mafinlib.termstructures.YieldTermStructureHandle;
+
+/**
+ * Parallel bump-and-reprice of a portfolio over a set of market scenarios
+ *
+ * LazyObjects cache their results and notify one another without synchronization, so a market graph cannot be
+ * shared between threads. The engine runs the scenarios on a {@link ForkJoinPool} where each worker builds its
+ * own copy of the market and of the instruments, through the given {@link PortfolioFactory}, in its own
+ * {@link Settings} session; each worker then prices every scenario it takes on its copy. The sessions are
+ * closed by the workers themselves when the pool is shut down, before {@link #run(List)} returns.
+ *
+ * A scenario relinks the handles of the shifted curves to shifted copies of their base curves, so that only the
+ * instruments observing those handles are recalculated: schedules, cash flows and the base curves themselves are
+ * built once per worker and reused by all the scenarios. The handles are relinked to their base curves afterwards.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class ScenarioEngine {
+
+	// workers which close their Settings session when they terminate
+	private static final ForkJoinPool.ForkJoinWorkerThreadFactory WORKERS = new ForkJoinPool.ForkJoinWorkerThreadFactory(){
+		@Override
+		public ForkJoinWorkerThread newThread(final ForkJoinPool pool){
+			return new ForkJoinWorkerThread(pool){
+				@Override
+				protected void onTermination(final Throwable exception){
+					Settings.endSession();
+					super.onTermination(exception);
+				}
+			};
+		}
+	};
+
+	private final PortfolioFactory factory;
+	private final int parallelism;
+
+
+	//constructors
+	/**
+	 * Uses as many workers as available processors.
+	 *
+	 * @param factory builds the private copy of the portfolio of each worker
+	 */
+	public ScenarioEngine(final PortfolioFactory factory){
+		this(factory, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param factory builds the private copy of the portfolio of each worker
+	 * @param parallelism the number of workers
+	 */
+	public ScenarioEngine(final PortfolioFactory factory, final int parallelism){
+		MFL.require(factory != null, "null portfolio factory");
+		MFL.require(parallelism > 0, "parallelism (" + parallelism + ") must be positive");
+		this.factory = factory;
+		this.parallelism = parallelism;
+	}
+
+
+	//public methods
+	/**
+	 * Prices the portfolio in each scenario. The workers, their sessions and their copies of the portfolio
+	 * only live for the duration of the call.
+	 *
+	 * @param scenarios
+	 * @return the NPV of the portfolio in each scenario
+	 */
+	public double[] run(final List<Scenario> scenarios){
+		MFL.require(scenarios != null, "null scenarios");
+		final Scenario[] array = scenarios.toArray(new Scenario[scenarios.size()]);
+		final double[] npvs = new double[array.length];
+		if(array.length == 0)
+			return npvs;
+
+		final ThreadLocal<Portfolio> portfolios = new ThreadLocal<Portfolio>();
+		final ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, array.length), WORKERS, null, false);
+		final CountDownLatch done = new CountDownLatch(1);
+		final Throwable[] failure = new Throwable[1];
+		try{
+			// the caller only waits, so that it never runs a task and never gets a session or a portfolio
+			pool.execute(new Runnable(){
+				@Override
+				public void run(){
+					try{
+						new Batch(array, npvs, portfolios, 0, array.length).invoke();
+					}catch(final Throwable e){
+						failure[0] = e;
+					}finally{
+						done.countDown();
+					}
+				}
+			});
+			done.await();
+		}catch(final InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new LibraryException("scenario run interrupted", e);
+		}finally{
+			pool.shutdownNow();
+			awaitTermination(pool);
+		}
+
+		if(failure[0] instanceof RuntimeException)
+			throw (RuntimeException) failure[0];
+		if(failure[0] instanceof Error)
+			throw (Error) failure[0];
+		if(failure[0] != null)
+			throw new LibraryException("scenario run failed", failure[0]);
+		return npvs;
+	}
+
+
+	//private methods
+	/**
+	 * Waits for the workers to terminate, and so to close their sessions. Tasks still running after
+	 * a failure are waited for as well, so that no worker uses the factory once the call has returned.
+	 */
+	private static void awaitTermination(final ForkJoinPool pool){
+		try{
+			while(!pool.awaitTermination(1, TimeUnit.SECONDS)){
+				// keep waiting
+			}
+		}catch(final InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	//public inner classes
+	/**
+	 * Builds a private copy of the market and of the instruments. It is called once by each worker, in
+	 * its own Settings session, and must not share any LazyObject or quote with the other copies.
+	 */
+	public interface PortfolioFactory {
+
+		public Portfolio create();
+	}
+
+	/**
+	 * Instruments priced off named curves. Each curve is given through the handle the instruments observe,
+	 * linked to a {@link DiscountCurve}, which is the base curve of the scenarios.
+	 */
+	public static final class Portfolio {
+
+		private final Map<String, YieldTermStructureHandle> handles;
+		private final Map<String, DiscountCurve> baseCurves;
+		private final List<Instrument> instruments;
+
+		/**
+		 * @param curves the handles to the curves, keyed by the names used in the scenarios
+		 * @param instruments
+		 */
+		public Portfolio(final Map<String, YieldTermStructureHandle> curves, final List<? extends Instrument> instruments){
+			this.handles = new LinkedHashMap<String, YieldTermStructureHandle>(curves);
+			this.baseCurves = new LinkedHashMap<String, DiscountCurve>();
+			for(final Map.Entry<String, YieldTermStructureHandle> e : handles.entrySet()){
+				final YieldTermStructure curve = e.getValue().currentLink();
+				MFL.require(curve instanceof DiscountCurve, "curve " + e.getKey() + " is not a DiscountCurve and cannot be shifted");
+				baseCurves.put(e.getKey(), (DiscountCurve) curve);
+			}
+			this.instruments = new ArrayList<Instrument>(instruments);
+		}
+
+		/**
+		 * @param scenario
+		 * @return the NPV of the instruments in the given scenario
+		 */
+		public double npv(final Scenario scenario){
+			final Map<String, CurveShift> shifts = scenario.shifts();
+			try{
+				for(final Map.Entry<String, CurveShift> e : shifts.entrySet()){
+					final YieldTermStructureHandle handle = handles.get(e.getKey());
+					if(handle == null)
+						throw new LibraryException("unknown curve " + e.getKey() + " in scenario " + scenario.name());
+					handle.linkTo(e.getValue().apply(baseCurves.get(e.getKey())));
+				}
+				double npv = 0.0;
+				for(int i = 0; i < instruments.size(); i++){
+					npv += instruments.get(i).NPV();
+				}
+				return npv;
+			}finally{
+				for(final String curve : shifts.keySet()){
+					final YieldTermStructureHandle handle = handles.get(curve);
+					if(handle != null){
+						handle.linkTo(baseCurves.get(curve));
+					}
+				}
+			}
+		}
+	}
+
+
+	//private inner classes
+	/**
+	 * Range of scenarios, split in halves until a single one is left
+	 */
+	private final class Batch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Scenario[] scenarios;
+		private final double[] npvs;
+		private final ThreadLocal<Portfolio> portfolios;
+		private final int from, to;
+
+		private Batch(final Scenario[] scenarios, final double[] npvs, final ThreadLocal<Portfolio> portfolios,
+				final int from, final int to){
+			this.scenarios = scenarios;
+			this.npvs = npvs;
+			this.portfolios = portfolios;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from == 1){
+				npvs[from] = portfolio().npv(scenarios[from]);
+			}else{
+				final int middle = (from + to) >>> 1;
+				invokeAll(new Batch(scenarios, npvs, portfolios, from, middle),
+						new Batch(scenarios, npvs, portfolios, middle, to));
+			}
+		}
+
+		/**
+		 * @return the portfolio of the current worker, built in its own session on the first call. The session
+		 * is closed if the portfolio cannot be built, so that a later task on the same worker tries again.
+		 */
+		private Portfolio portfolio(){
+			Portfolio portfolio = portfolios.get();
+			if(portfolio == null){
+				Settings.beginSession();
+				try{
+					portfolio = factory.create();
+					MFL.require(portfolio != null, "null portfolio");
+				}finally{
+					if(portfolio == null){
+						Settings.endSession();
+					}
+				}
+				portfolios.set(portfolio);
+			}
+			return portfolio;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import org.mafinlib.MFL;
+import org.mafinlib.quotes.Quote;
+import org.mafinlib.time.Date;
+import org.mafinlib.time.DayCounter;
+
+/**
+ * Rate helper for bootstrapping over deposit rates, quoted as simple rates between a start and a maturity date.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class DepositRateHelper extends RateHelper {
+
+	private final Date startDate;
+	private final Date maturityDate;
+	private final double accrual;
+	private double startTime;
+	private double maturityTime;
+
+
+	//constructor
+	/**
+	 * @param rate the quoted simple rate
+	 * @param startDate
+	 * @param maturityDate
+	 * @param dayCounter the day counter of the rate
+	 */
+	public DepositRateHelper(final Quote rate, final Date startDate, final Date maturityDate,
+			final DayCounter dayCounter){
+		super(rate);
+		MFL.require(maturityDate.gt(startDate), "maturity date " + maturityDate + " not after start date " + startDate);
+		this.startDate = startDate;
+		this.maturityDate = maturityDate;
+		this.accrual = dayCounter.yearFraction(startDate, maturityDate);
+	}
+
+
+	//public methods
+	public final Date startDate(){
+		return startDate;
+	}
+
+	@Override
+	public Date pillarDate(){
+		return maturityDate;
+	}
+
+	@Override
+	public double impliedQuote(final YieldTermStructure curve){
+		return (curve.discount(startTime) / curve.discount(maturityTime) - 1.0) / accrual;
+	}
+
+
+	//protected methods
+	@Override
+	protected void initialize(final YieldTermStructure curve){
+		startTime = curve.timeFromReference(startDate);
+		maturityTime = curve.timeFromReference(maturityDate);
+	}
+
+}
@@ -0,0 +1,247 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+import org.mafinlib.math.adjoint.ADouble;
+import org.mafinlib.math.adjoint.Tape;
+import org.mafinlib.time.Date;
+import org.mafinlib.time.DayCounter;
+
+/**
+ * Yield curve based on discount factors at given pillars, interpolated log-linearly.
+ *
+ * This is the Java counterpart of Quantlib's InterpolatedDiscountCurve&lt;LogLinear&gt;. Forward rates are flat
+ * between pillars; when extrapolation is enabled, the forward rate of the last segment is kept after the last
+ * pillar.
+ *
+ * Pillar times and values are kept in primitive arrays. The curve remembers the segment of the last lookup and
+ * searches from there, so that increasing or decreasing sequences of queries, as done when pricing a cash flow
+ * schedule, take amortized constant time.
+ *
+ * Sensitivities to the discount factors at the pillars are given by reverse-mode automatic differentiation:
+ * <i><b>registerPillars</b></i> makes them inputs of the tape, and each discount factor asked with them is
+ * recorded as a single node.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class DiscountCurve extends YieldTermStructure {
+
+	protected final double[] times;
+	protected final double[] discounts;
+	// log of the discount factors and slope of each segment
+	private final double[] logDiscounts;
+	private final double[] slopes;
+	// segment of the last lookup; a hint only, so races between threads are harmless
+	private int segment;
+
+
+	//constructors
+	/**
+	 * @param dates the pillar dates, the first one being the reference date
+	 * @param discounts the discount factors at the pillars, the first one being 1.0
+	 * @param dayCounter
+	 */
+	public DiscountCurve(final Date[] dates, final double[] discounts, final DayCounter dayCounter){
+		this(dates[0], pillarTimes(dates, dayCounter), discounts, dayCounter);
+	}
+
+	/**
+	 * @param referenceDate
+	 * @param times the pillar times, the first one being 0.0
+	 * @param discounts the discount factors at the pillars, the first one being 1.0
+	 * @param dayCounter
+	 */
+	public DiscountCurve(final Date referenceDate, final double[] times, final double[] discounts,
+			final DayCounter dayCounter){
+		super(referenceDate, dayCounter);
+		MFL.require(times.length >= 2, "not enough pillars given (" + times.length + ")");
+		MFL.require(times.length == discounts.length,
+				"size mismatch between times (" + times.length + ") and discounts (" + discounts.length + ")");
+		MFL.require(times[0] == 0.0, "the first pillar must be at the reference date");
+		MFL.require(discounts[0] == 1.0, "the first discount must be 1.0 to be consistent with the reference date");
+		for(int i = 1; i < times.length; i++){
+			MFL.require(times[i] > times[i - 1], "pillar times must be increasing");
+		}
+		this.times = times.clone();
+		this.discounts = new double[discounts.length];
+		this.logDiscounts = new double[discounts.length];
+		this.slopes = new double[discounts.length - 1];
+		for(int i = 0; i < discounts.length; i++){
+			setDiscount(i, discounts[i]);
+		}
+	}
+
+
+	//public methods
+	@Override
+	public double maxTime(){
+		return times[times.length - 1];
+	}
+
+	/**
+	 * @return the number of pillars
+	 */
+	public final int size(){
+		return times.length;
+	}
+
+	/**
+	 * @return a copy of the pillar times
+	 */
+	public final double[] times(){
+		calculate();
+		return times.clone();
+	}
+
+	/**
+	 * @return a copy of the discount factors at the pillars
+	 */
+	public final double[] data(){
+		calculate();
+		return discounts.clone();
+	}
+
+	/**
+	 * Registers the discount factors at the pillars as inputs on the given tape, so that the adjoints
+	 * of a calculation using <i><b>discount(double, ADouble[])</b></i> give its sensitivities to them.
+	 *
+	 * @param tape the tape of the current thread
+	 * @return the active discount factors at the pillars
+	 */
+	public final ADouble[] registerPillars(final Tape tape){
+		calculate();
+		return tape.register(discounts);
+	}
+
+	/**
+	 * Discount factor recorded on the tape of the current thread as a single node depending on the two
+	 * pillars around t.
+	 *
+	 * @param t the time from the reference date
+	 * @param pillars the active discount factors at the pillars, as returned by <i><b>registerPillars</b></i>
+	 * @return the active discount factor
+	 */
+	public final ADouble discount(final double t, final ADouble[] pillars){
+		MFL.require(pillars.length == times.length, "wrong number of pillars");
+		final double discount = discount(t);
+		final int i = segment(t);
+		final double w = (t - times[i]) / (times[i + 1] - times[i]);
+		// d(D_i^(1-w) D_(i+1)^w) / dD_i and / dD_(i+1)
+		return Tape.current().record(discount, pillars[i], (1.0 - w) * discount / discounts[i],
+				pillars[i + 1], w * discount / discounts[i + 1]);
+	}
+
+	/**
+	 * @param d
+	 * @param pillars the active discount factors at the pillars, as returned by <i><b>registerPillars</b></i>
+	 * @return the active discount factor
+	 * @see #discount(double, ADouble[])
+	 */
+	public final ADouble discount(final Date d, final ADouble[] pillars){
+		return discount(timeFromReference(d), pillars);
+	}
+
+
+	//protected methods
+	@Override
+	protected double discountImpl(final double t){
+		final int i = segment(t);
+		return Math.exp(logDiscounts[i] + slopes[i] * (t - times[i]));
+	}
+
+	/**
+	 * Sets the discount factor at the i-th pillar and updates the interpolation of the adjacent segments.
+	 * Derived classes building the curve from market data call this method; they are responsible for
+	 * notifying the observers.
+	 *
+	 * @param i
+	 * @param discount
+	 */
+	protected final void setDiscount(final int i, final double discount){
+		if(!(discount > 0.0))
+			throw new LibraryException("non-positive discount factor (" + discount + ") at pillar " + i);
+		discounts[i] = discount;
+		logDiscounts[i] = Math.log(discount);
+		if(i > 0){
+			slopes[i - 1] = (logDiscounts[i] - logDiscounts[i - 1]) / (times[i] - times[i - 1]);
+		}
+		if(i < slopes.length){
+			slopes[i] = (logDiscounts[i + 1] - logDiscounts[i]) / (times[i + 1] - times[i]);
+		}
+	}
+
+
+	//private methods
+	/**
+	 * Finds the segment containing t, that is the last pillar not after it, starting from the last one found:
+	 * the search gallops away from it and then bisects, so that its cost grows with the log of the distance.
+	 *
+	 * @param t a non-negative time
+	 * @return the segment index, in [0, size() - 2]
+	 */
+	private int segment(final double t){
+		final double[] x = times;
+		final int last = x.length - 2;
+		final int hint = segment;
+		int lo, hi;
+		if(t >= x[hint]){
+			if(hint == last || t < x[hint + 1]){
+				return hint;
+			}
+			// x[lo] <= t
+			lo = hint + 1;
+			int step = 1;
+			hi = lo + step;
+			while(hi <= last && x[hi] <= t){
+				lo = hi;
+				step <<= 1;
+				hi = lo + step;
+			}
+			hi = Math.min(hi - 1, last);
+		}else{
+			// x[hi + 1] > t
+			hi = hint - 1;
+			int step = 1;
+			lo = hi - step;
+			while(lo > 0 && x[lo] > t){
+				hi = lo - 1;
+				step <<= 1;
+				lo = hi - step;
+			}
+			lo = Math.max(lo, 0);
+		}
+		while(lo < hi){
+			final int mid = (lo + hi + 1) >>> 1;
+			if(x[mid] <= t){
+				lo = mid;
+			}else{
+				hi = mid - 1;
+			}
+		}
+		segment = lo;
+		return lo;
+	}
+
+	private static double[] pillarTimes(final Date[] dates, final DayCounter dayCounter){
+		MFL.require(dates.length > 0, "no pillar dates given");
+		final double[] times = new double[dates.length];
+		for(int i = 1; i < dates.length; i++){
+			MFL.require(dates[i].gt(dates[i - 1]), "pillar dates must be increasing");
+			times[i] = dayCounter.yearFraction(dates[0], dates[i]);
+		}
+		return times;
+	}
+
+}
@@ -0,0 +1,241 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+import org.mafinlib.patterns.ObserverInterface;
+import org.mafinlib.time.Date;
+import org.mafinlib.time.DayCounter;
+
+/**
+ * Discount curve bootstrapped over a set of rate helpers, interpolated log-linearly.
+ *
+ * This is the Java counterpart of Quantlib's PiecewiseYieldCurve&lt;Discount, LogLinear&gt;. Each helper sets a
+ * pillar, sorted by date, and the discount factor at each pillar is solved in turn so that the helper
+ * reprices its market quote.
+ *
+ * The bootstrap is incremental. The discount factor at a pillar only depends on the quotes of the helpers
+ * up to it, so the curve observes each quote separately and, when one of them changes, only the pillar of
+ * its helper and the following ones are solved again on the next query. Each pillar is solved starting from
+ * its previous value, moved like the pillar before it, and the first step uses the sensitivity of the quote found
+ * by the previous solve, so that one or two iterations are enough when quotes move by a few basis points. Other
+ * notifications, received through <i><b>update</b></i>, lead to a full bootstrap.
+ *
+ * Like any LazyObject, the curve is not meant to be updated and queried concurrently.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class PiecewiseYieldCurve extends DiscountCurve {
+
+	/**
+	 * Accuracy required on the quotes
+	 */
+	public static final double ACCURACY = 1.0e-12;
+
+	/**
+	 * Maximum number of iterations for each pillar
+	 */
+	public static final int MAX_ITERATIONS = 100;
+
+	// flat rate giving the first guess of the discount factors
+	private static final double GUESS_RATE = 0.05;
+
+	private final RateHelper[] helpers;
+	// first pillar to be solved again, times.length if the curve is up to date
+	private int firstDirty;
+	// derivative of the quote error with respect to the log of the discount factor at each pillar, 0 if unknown
+	private final double[] sensitivities;
+
+
+	//constructors
+	/**
+	 * @param referenceDate
+	 * @param helpers the rate helpers, with distinct pillar dates after the reference date
+	 * @param dayCounter
+	 */
+	public PiecewiseYieldCurve(final Date referenceDate, final List<? extends RateHelper> helpers,
+			final DayCounter dayCounter){
+		this(referenceDate, sorted(helpers), dayCounter);
+	}
+
+	private PiecewiseYieldCurve(final Date referenceDate, final RateHelper[] helpers, final DayCounter dayCounter){
+		this(referenceDate, helpers, pillarTimes(referenceDate, helpers, dayCounter), dayCounter);
+	}
+
+	private PiecewiseYieldCurve(final Date referenceDate, final RateHelper[] helpers, final double[] times,
+			final DayCounter dayCounter){
+		super(referenceDate, times, guess(times), dayCounter);
+		this.helpers = helpers;
+		this.sensitivities = new double[times.length];
+		for(int i = 0; i < helpers.length; i++){
+			helpers[i].initialize(this);
+			helpers[i].quote().addObserver(new QuoteObserver(i + 1));
+		}
+		this.firstDirty = 1;
+	}
+
+
+	//public methods
+	/**
+	 * @return a copy of the rate helpers, sorted by pillar date
+	 */
+	public final RateHelper[] helpers(){
+		return helpers.clone();
+	}
+
+	/**
+	 * Marks the whole curve for bootstrapping. Changes of the quotes of the helpers do not go
+	 * through this method, they only mark the pillars depending on them.
+	 */
+	@Override
+	public void update(){
+		firstDirty = 1;
+		super.update();
+	}
+
+
+	//protected methods
+	/**
+	 * A bootstrap failing on a pillar leaves the curve not calculated, so that the next query
+	 * tries again from that pillar.
+	 */
+	@Override
+	protected void calculate(){
+		try{
+			super.calculate();
+		}catch(final RuntimeException e){
+			calculated = false;
+			throw e;
+		}
+	}
+
+	/**
+	 * Solves the pillars from the first one marked. A change of the discount factor at a pillar moves
+	 * the following ones by about the same ratio, so the ratio is applied to their previous values
+	 * to get the first guess.
+	 */
+	@Override
+	protected void performCalculations(){
+		double ratio = 1.0;
+		for(int i = firstDirty; i < times.length; i++){
+			final double previous = discounts[i];
+			setDiscount(i, previous * ratio);
+			solve(i, helpers[i - 1]);
+			ratio = discounts[i] / previous;
+			firstDirty = i + 1;
+		}
+	}
+
+
+	//private methods
+	/**
+	 * Solves for the discount factor at the i-th pillar with the secant method, starting from its current value.
+	 */
+	private void solve(final int i, final RateHelper helper){
+		if(!helper.quote().isValid())
+			throw new LibraryException("invalid quote for the helper of pillar " + helper.pillarDate());
+
+		double x0 = discounts[i];
+		double f0 = helper.quoteError(this);
+		if(Math.abs(f0) <= ACCURACY)
+			return;
+		// Newton step with the sensitivity found by the last solve or, on the first one, a basis point on the zero rate
+		final double step = sensitivities[i] != 0.0 ? -f0 / sensitivities[i] : (f0 > 0.0 ? -1.0e-4 : 1.0e-4) * times[i];
+		double x1 = x0 * Math.exp(step);
+		setDiscount(i, x1);
+		double f1 = helper.quoteError(this);
+
+		for(int iteration = 0; iteration < MAX_ITERATIONS; iteration++){
+			if(Math.abs(f1) <= ACCURACY){
+				final double sensitivity = (f1 - f0) / Math.log(x1 / x0);
+				if(sensitivity != 0.0 && !Double.isInfinite(sensitivity) && !Double.isNaN(sensitivity)){
+					sensitivities[i] = sensitivity;
+				}
+				return;
+			}
+			if(f1 == f0)
+				break;
+			double x2 = x1 - f1 * (x1 - x0) / (f1 - f0);
+			// keep the discount factor positive
+			if(!(x2 > 0.0)){
+				x2 = 0.5 * x1;
+			}
+			x0 = x1;
+			f0 = f1;
+			x1 = x2;
+			setDiscount(i, x1);
+			f1 = helper.quoteError(this);
+		}
+		throw new ArithmeticException("unable to bootstrap pillar " + helper.pillarDate() + ", quote error " + f1);
+	}
+
+	private static RateHelper[] sorted(final List<? extends RateHelper> helpers){
+		MFL.require(helpers != null && !helpers.isEmpty(), "no rate helpers given");
+		final RateHelper[] sorted = helpers.toArray(new RateHelper[helpers.size()]);
+		Arrays.sort(sorted, new Comparator<RateHelper>(){
+			@Override
+			public int compare(final RateHelper h1, final RateHelper h2){
+				return h1.pillarDate().compareTo(h2.pillarDate());
+			}
+		});
+		return sorted;
+	}
+
+	private static double[] pillarTimes(final Date referenceDate, final RateHelper[] helpers,
+			final DayCounter dayCounter){
+		final double[] times = new double[helpers.length + 1];
+		Date previous = referenceDate;
+		for(int i = 0; i < helpers.length; i++){
+			final Date pillar = helpers[i].pillarDate();
+			MFL.require(pillar.gt(previous), "pillar date " + pillar + " not after " + previous
+					+ ", helpers must have distinct pillars after the reference date");
+			times[i + 1] = dayCounter.yearFraction(referenceDate, pillar);
+			previous = pillar;
+		}
+		return times;
+	}
+
+	private static double[] guess(final double[] times){
+		final double[] discounts = new double[times.length];
+		for(int i = 0; i < times.length; i++){
+			discounts[i] = Math.exp(-GUESS_RATE * times[i]);
+		}
+		return discounts;
+	}
+
+
+	//private inner classes
+	/**
+	 * Observer of the quote of the helper of a given pillar
+	 */
+	private final class QuoteObserver implements ObserverInterface {
+
+		private final int pillar;
+
+		private QuoteObserver(final int pillar){
+			this.pillar = pillar;
+		}
+
+		@Override
+		public void update(){
+			firstDirty = Math.min(firstDirty, pillar);
+			PiecewiseYieldCurve.super.update();
+		}
+	}
+
+}
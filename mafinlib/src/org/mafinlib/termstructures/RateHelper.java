@@ -0,0 +1,79 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import org.mafinlib.MFL;
+import org.mafinlib.quotes.Quote;
+import org.mafinlib.time.Date;
+
+/**
+ * This is a port of Quantlib's BootstrapHelper class, specialized to yield term structures.
+ *
+ * A rate helper wraps the quote of an instrument and computes the value of that quote implied by a
+ * curve. A {@link PiecewiseYieldCurve} sets the discount factor at the pillar date of each helper so that
+ * the implied quote matches the market one.
+ *
+ * The implied quote may only depend on discount factors up to the pillar date.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public abstract class RateHelper {
+
+	protected final Quote quote;
+
+
+	//constructor
+	protected RateHelper(final Quote quote){
+		MFL.require(quote != null, "null quote");
+		this.quote = quote;
+	}
+
+
+	//public methods
+	/**
+	 * @return the market quote of the instrument
+	 */
+	public final Quote quote(){
+		return quote;
+	}
+
+	/**
+	 * @return the date of the curve pillar determined by this helper, usually the last date of the instrument
+	 */
+	public abstract Date pillarDate();
+
+	/**
+	 * @param curve the curve being bootstrapped
+	 * @return the value of the quote implied by the curve
+	 */
+	public abstract double impliedQuote(YieldTermStructure curve);
+
+	/**
+	 * @param curve the curve being bootstrapped
+	 * @return the difference between the market quote and the implied one
+	 */
+	public final double quoteError(final YieldTermStructure curve){
+		return quote.value() - impliedQuote(curve);
+	}
+
+
+	//protected methods
+	/**
+	 * Called once by the curve before bootstrapping, so that the helper can convert its dates into times
+	 * from the reference date of the curve instead of doing so at every iteration.
+	 *
+	 * @param curve the curve to be bootstrapped
+	 */
+	protected abstract void initialize(YieldTermStructure curve);
+
+}
@@ -0,0 +1,85 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import org.mafinlib.MFL;
+import org.mafinlib.quotes.Quote;
+import org.mafinlib.time.Date;
+import org.mafinlib.time.DayCounter;
+import org.mafinlib.time.Schedule;
+
+/**
+ * Rate helper for bootstrapping over par swap rates.
+ *
+ * The floating leg is assumed to be worth par on the curve being bootstrapped, so that the par rate is
+ * the value of the floating leg, <code>P(t_0) - P(t_n)</code>, divided by the annuity of the fixed leg,
+ * <code>sum tau_i P(t_i)</code>, the dates being those of the fixed-leg schedule.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class SwapRateHelper extends RateHelper {
+
+	private final Schedule fixedSchedule;
+	// accrual periods of the fixed leg
+	private final double[] accruals;
+	// times of the fixed-leg dates, the first one being the start of the swap
+	private double[] times;
+
+
+	//constructor
+	/**
+	 * @param rate the quoted par rate
+	 * @param fixedSchedule the schedule of the fixed leg
+	 * @param fixedDayCounter the day counter of the fixed leg
+	 */
+	public SwapRateHelper(final Quote rate, final Schedule fixedSchedule, final DayCounter fixedDayCounter){
+		super(rate);
+		MFL.require(fixedSchedule.size() >= 2, "fixed-leg schedule with less than two dates");
+		this.fixedSchedule = fixedSchedule;
+		this.accruals = new double[fixedSchedule.size() - 1];
+		for(int i = 0; i < accruals.length; i++){
+			accruals[i] = fixedDayCounter.yearFraction(fixedSchedule.date(i), fixedSchedule.date(i + 1));
+		}
+	}
+
+
+	//public methods
+	public final Schedule fixedSchedule(){
+		return fixedSchedule;
+	}
+
+	@Override
+	public Date pillarDate(){
+		return fixedSchedule.endDate();
+	}
+
+	@Override
+	public double impliedQuote(final YieldTermStructure curve){
+		double annuity = 0.0;
+		for(int i = 0; i < accruals.length; i++){
+			annuity += accruals[i] * curve.discount(times[i + 1]);
+		}
+		return (curve.discount(times[0]) - curve.discount(times[accruals.length])) / annuity;
+	}
+
+
+	//protected methods
+	@Override
+	protected void initialize(final YieldTermStructure curve){
+		times = new double[fixedSchedule.size()];
+		for(int i = 0; i < times.length; i++){
+			times[i] = curve.timeFromReference(fixedSchedule.date(i));
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import org.mafinlib.InterestRate;
+import org.mafinlib.InterestRate.Compounding;
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+import org.mafinlib.patterns.LazyObject;
+import org.mafinlib.time.Date;
+import org.mafinlib.time.DayCounter;
+import org.mafinlib.time.Frequency;
+
+/**
+ * This is a port of Quantlib's YieldTermStructure class.
+ *
+ * This abstract class defines the interface of concrete interest-rate term structures. Derived classes
+ * only need to implement <i><b>discountImpl</b></i> and <i><b>maxTime</b></i>: zero and forward rates are
+ * implied by the discount factors.
+ *
+ * Times are measured from the reference date using the day counter of the curve.
+ *
+ * A term structure is a LazyObject: every query calls <i><b>calculate</b></i> first, so that curves depending
+ * on market data are rebuilt only when needed. Instruments and engines register with the curve as observers
+ * and are notified when it changes.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public abstract class YieldTermStructure extends LazyObject {
+
+	/**
+	 * Time step used to imply instantaneous rates
+	 */
+	public static final double dt = 0.0001;
+
+	protected final Date referenceDate;
+	protected final DayCounter dayCounter;
+	private boolean extrapolate;
+
+
+	//constructor
+	protected YieldTermStructure(final Date referenceDate, final DayCounter dayCounter){
+		MFL.require(referenceDate != null && !referenceDate.isNull(), "null reference date");
+		MFL.require(dayCounter != null && !dayCounter.empty(), "null day counter");
+		this.referenceDate = referenceDate;
+		this.dayCounter = dayCounter;
+		this.extrapolate = false;
+	}
+
+
+	//public methods
+	/**
+	 * @return the date at which discount = 1.0 and/or variance = 0.0
+	 */
+	public final Date referenceDate(){
+		return referenceDate;
+	}
+
+	/**
+	 * @return the day counter used for date/time conversion
+	 */
+	public final DayCounter dayCounter(){
+		return dayCounter;
+	}
+
+	/**
+	 * @return the latest time for which the curve can return values
+	 */
+	public abstract double maxTime();
+
+	/**
+	 * @return the date/time conversion of the given date
+	 */
+	public final double timeFromReference(final Date d){
+		return dayCounter.yearFraction(referenceDate, d);
+	}
+
+	public final void enableExtrapolation(){
+		extrapolate = true;
+	}
+
+	public final void disableExtrapolation(){
+		extrapolate = false;
+	}
+
+	/**
+	 * @return true if the curve can return values after <i><b>maxTime</b></i>
+	 */
+	public final boolean allowsExtrapolation(){
+		return extrapolate;
+	}
+
+	/**
+	 * @param t the time from the reference date
+	 * @return the discount factor from the given time to the reference date
+	 */
+	public final double discount(final double t){
+		calculate();
+		checkRange(t);
+		return discountImpl(t);
+	}
+
+	/**
+	 * @param d
+	 * @return the discount factor from the given date to the reference date
+	 */
+	public final double discount(final Date d){
+		return discount(timeFromReference(d));
+	}
+
+	/**
+	 * The zero rate at the reference date is the instantaneous one.
+	 *
+	 * @param t the time from the reference date
+	 * @param comp
+	 * @param freq
+	 * @return the implied zero-yield rate, using the day counter of the curve
+	 */
+	public final InterestRate zeroRate(final double t, final Compounding comp, final Frequency freq){
+		final double time = t == 0.0 ? dt : t;
+		final double compound = 1.0 / discount(time);
+		return InterestRate.impliedRate(compound, dayCounter, comp, freq, time);
+	}
+
+	/**
+	 * The zero rate at the reference date is the instantaneous one.
+	 *
+	 * @param d
+	 * @param resultDayCounter the day counter of the returned rate
+	 * @param comp
+	 * @param freq
+	 * @return the implied zero-yield rate for the given date
+	 */
+	public final InterestRate zeroRate(final Date d, final DayCounter resultDayCounter,
+			final Compounding comp, final Frequency freq){
+		if(d.eq(referenceDate)){
+			final double compound = 1.0 / discount(dt);
+			return InterestRate.impliedRate(compound, resultDayCounter, comp, freq, dt);
+		}
+		final double compound = 1.0 / discount(d);
+		return InterestRate.impliedRate(compound, resultDayCounter, comp, freq, referenceDate, d);
+	}
+
+	/**
+	 * Equal times give the instantaneous forward rate.
+	 *
+	 * @param t1 start of the forward period
+	 * @param t2 end of the forward period
+	 * @param comp
+	 * @param freq
+	 * @return the forward rate between the given times, using the day counter of the curve
+	 */
+	public final InterestRate forwardRate(final double t1, final double t2,
+			final Compounding comp, final Frequency freq){
+		MFL.require(t2 >= t1, "t2 (" + t2 + ") < t1 (" + t1 + ")");
+		final double start, end;
+		if(t2 == t1){
+			start = Math.max(t1 - dt / 2.0, 0.0);
+			end = start + dt;
+		}else{
+			start = t1;
+			end = t2;
+		}
+		final double compound = discount(start) / discount(end);
+		return InterestRate.impliedRate(compound, dayCounter, comp, freq, end - start);
+	}
+
+	/**
+	 * Equal dates give the instantaneous forward rate.
+	 *
+	 * @param d1 start of the forward period
+	 * @param d2 end of the forward period
+	 * @param resultDayCounter the day counter of the returned rate
+	 * @param comp
+	 * @param freq
+	 * @return the forward rate between the given dates
+	 */
+	public final InterestRate forwardRate(final Date d1, final Date d2, final DayCounter resultDayCounter,
+			final Compounding comp, final Frequency freq){
+		if(d1.eq(d2)){
+			final double t1 = timeFromReference(d1);
+			final double start = Math.max(t1 - dt / 2.0, 0.0);
+			final double compound = discount(start) / discount(start + dt);
+			return InterestRate.impliedRate(compound, resultDayCounter, comp, freq, dt);
+		}
+		MFL.require(d1.lt(d2), d1 + " later than " + d2);
+		final double compound = discount(d1) / discount(d2);
+		return InterestRate.impliedRate(compound, resultDayCounter, comp, freq, d1, d2);
+	}
+
+
+	//protected methods
+	/**
+	 * Discount factor calculation. Implementations can assume that t was checked by <i><b>checkRange</b></i>
+	 * and that <i><b>calculate</b></i> was called.
+	 *
+	 * @param t the time from the reference date
+	 * @return the discount factor
+	 */
+	protected abstract double discountImpl(double t);
+
+	/**
+	 * Curves built on given data have nothing to calculate. Curves depending on market data override this method.
+	 */
+	@Override
+	protected void performCalculations(){
+	}
+
+	/**
+	 * Checks that the curve can return a value at the given time.
+	 *
+	 * @param t the time from the reference date
+	 */
+	protected final void checkRange(final double t){
+		if(!(t >= 0.0))
+			throw new LibraryException("negative time (" + t + ") given");
+		if(t > maxTime() && !extrapolate)
+			throw new LibraryException("time (" + t + ") is past max curve time (" + maxTime() + ")");
+	}
+
+}
@@ -0,0 +1,127 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.termstructures;
+
+import java.util.List;
+
+import org.mafinlib.library.exceptions.LibraryException;
+import org.mafinlib.patterns.Observable;
+import org.mafinlib.patterns.ObservableInterface;
+import org.mafinlib.patterns.ObserverInterface;
+
+/**
+ * Relinkable handle to a yield term structure, the counterpart of Quantlib's RelinkableHandle&lt;YieldTermStructure&gt;.
+ *
+ * Instruments and engines register with the handle instead of the curve. The handle forwards the notifications
+ * of the curve it points to and broadcasts its own notification each time it is relinked, so that a curve can be
+ * replaced, e.g. by a shifted one, without rebuilding the instruments depending on it.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class YieldTermStructureHandle implements ObservableInterface, ObserverInterface {
+
+	private YieldTermStructure link;
+
+
+	//constructors
+	public YieldTermStructureHandle(){
+		this(null);
+	}
+
+	public YieldTermStructureHandle(final YieldTermStructure link){
+		linkTo(link);
+	}
+
+
+	//public methods
+	/**
+	 * @return true if the handle does not point to any curve
+	 */
+	public final boolean empty(){
+		return link == null;
+	}
+
+	/**
+	 * @return the curve the handle points to
+	 */
+	public final YieldTermStructure currentLink(){
+		if(link == null)
+			throw new LibraryException("empty yield term structure handle");
+		return link;
+	}
+
+	/**
+	 * Points the handle to another curve, or to none, and notifies the observers.
+	 *
+	 * @param link
+	 */
+	public final void linkTo(final YieldTermStructure link){
+		if(link != this.link){
+			if(this.link != null){
+				this.link.deleteObserver(this);
+			}
+			this.link = link;
+			if(link != null){
+				link.addObserver(this);
+			}
+			notifyObservers();
+		}
+	}
+
+	/**
+	 * Forwards the notifications of the curve.
+	 */
+	@Override
+	public void update(){
+		notifyObservers();
+	}
+
+
+	private final ObservableInterface myObservable = new Observable(this);
+
+	@Override
+	public synchronized void addObserver(final ObserverInterface observer) {
+		myObservable.addObserver(observer);
+	}
+
+	@Override
+	public int countObservers() {
+		return myObservable.countObservers();
+	}
+
+	@Override
+	public List<ObserverInterface> getObservers() {
+		return myObservable.getObservers();
+	}
+
+	@Override
+	public synchronized void deleteObserver(final ObserverInterface observer){
+		myObservable.deleteObserver(observer);
+	}
+
+	@Override
+	public synchronized void deleteObservers() {
+		myObservable.deleteObservers();
+	}
+
+	@Override
+	public void notifyObservers(){
+		myObservable.notifyObservers();
+	}
+
+	@Override
+	public void notifyObservers(final Object arg) {
+		myObservable.notifyObservers(arg);
+	}
+
+}
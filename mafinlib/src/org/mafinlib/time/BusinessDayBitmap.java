@@ -0,0 +1,267 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import org.mafinlib.MFL;
+
+/**
+ * Business days of a {@link Calendar} over the whole allowed range of serial numbers,
+ * one bit per day.
+ * <p>
+ * Bit <code>i</code> of the bitmap is set if the date with serial number
+ * <code>firstSerial() + i</code> is a business day. The bits are packed in a
+ * <code>long[]</code>, least significant bit first, so that a word covers 64
+ * consecutive days and range queries can be answered a word at a time.
+ * <p>
+ * Alongside the bits, the bitmap keeps the number of business days preceding each
+ * word. The number of business days in any range is then the difference of two
+ * {@link #rank(long)} lookups, each a table read plus a population count.
+ * <p>
+ * Instances are immutable and can be shared freely between threads.
+ *
+ * @see Calendar#compile()
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class BusinessDayBitmap {
+
+    private static final long firstSerial = DateSerials.minimumSerialNumber();
+    private static final long lastSerial = DateSerials.maximumSerialNumber();
+    private static final int days = (int) (lastSerial - firstSerial + 1);
+    private static final int words = (days + 63) >>> 6;
+
+    private final long[] bits;
+
+    // rank[w] is the number of business days in the words preceding w
+    private final int[] rank;
+
+
+    //
+    // package private constructors
+    //
+
+    /**
+     * @param bits the words of the bitmap, which are not copied
+     */
+    BusinessDayBitmap(final long[] bits) {
+        MFL.require(bits.length == words, "wrong number of words in business day bitmap");
+        this.bits = bits;
+        this.rank = new int[words + 1];
+        for (int w = 0; w < words; w++) {
+            rank[w + 1] = rank[w] + Long.bitCount(bits[w]);
+        }
+    }
+
+    private BusinessDayBitmap(final long[] bits, final int[] rank) {
+        this.bits = bits;
+        this.rank = rank;
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * @return the serial number of the first date covered by the bitmap
+     */
+    public static long firstSerial() {
+        return firstSerial;
+    }
+
+    /**
+     * @return the serial number of the last date covered by the bitmap
+     */
+    public static long lastSerial() {
+        return lastSerial;
+    }
+
+    /**
+     * @return the number of 64 bit words of the bitmap
+     */
+    public static int wordCount() {
+        return words;
+    }
+
+    /**
+     * @param serial
+     * @return whether the given serial number is covered by the bitmap
+     */
+    public static boolean covers(final long serial) {
+        return serial >= firstSerial && serial <= lastSerial;
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * @param serial a serial number covered by the bitmap
+     * @return whether the date with the given serial number is a business day
+     */
+    public boolean isBusinessDay(final long serial) {
+        final int i = (int) (serial - firstSerial);
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * @param from first serial number, covered by the bitmap
+     * @param to last serial number, covered by the bitmap
+     * @return whether there is at least a business day in [from, to]
+     */
+    public boolean anyBusinessDay(final long from, final long to) {
+        if (from > to)
+            return false;
+        final int i = (int) (from - firstSerial);
+        final int j = (int) (to - firstSerial);
+        final int wi = i >>> 6;
+        final int wj = j >>> 6;
+        final long first = -1L << i;
+        final long last = -1L >>> (63 - (j & 63));
+        if (wi == wj)
+            return (bits[wi] & first & last) != 0;
+        if ((bits[wi] & first) != 0)
+            return true;
+        for (int w = wi + 1; w < wj; w++)
+            if (bits[w] != 0)
+                return true;
+        return (bits[wj] & last) != 0;
+    }
+
+    /**
+     * @param serial a serial number in [firstSerial(), lastSerial() + 1]
+     * @return the number of business days in [firstSerial(), serial)
+     */
+    public int rank(final long serial) {
+        final int i = (int) (serial - firstSerial);
+        final int w = i >>> 6;
+        if (w == words)
+            return rank[words];
+        return rank[w] + Long.bitCount(bits[w] & ((1L << i) - 1));
+    }
+
+    /**
+     * @param from first serial number, covered by the bitmap
+     * @param to last serial number, covered by the bitmap
+     * @return the number of business days in [from, to]
+     */
+    public int countBusinessDays(final long from, final long to) {
+        if (from > to)
+            return 0;
+        return rank(to + 1) - rank(from);
+    }
+
+    /**
+     * @param serial a serial number covered by the bitmap
+     * @return the first business day on or after the given serial number, or -1 if there
+     * is none in the bitmap
+     */
+    public long nextBusinessDay(final long serial) {
+        final int i = (int) (serial - firstSerial);
+        int w = i >>> 6;
+        long word = bits[w] & (-1L << i);
+        while (word == 0) {
+            if (++w == words)
+                return -1;
+            word = bits[w];
+        }
+        return firstSerial + ((long) w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @param serial a serial number covered by the bitmap
+     * @return the last business day on or before the given serial number, or -1 if there
+     * is none in the bitmap
+     */
+    public long previousBusinessDay(final long serial) {
+        final int i = (int) (serial - firstSerial);
+        int w = i >>> 6;
+        long word = bits[w] & (-1L >>> (63 - (i & 63)));
+        while (word == 0) {
+            if (--w < 0)
+                return -1;
+            word = bits[w];
+        }
+        return firstSerial + ((long) w << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * @return the number of business days covered by the bitmap
+     */
+    public int businessDayCount() {
+        return rank[words];
+    }
+
+    /**
+     * Inverse of {@link #rank(long)}.
+     *
+     * @param k a number in [0, businessDayCount())
+     * @return the serial number of the business day preceded by exactly k business days
+     */
+    public long select(final int k) {
+        MFL.require(k >= 0 && k < rank[words], "business day index out of range");
+        // last word whose preceding count does not exceed k
+        int lo = 0;
+        int hi = words - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (rank[mid] <= k)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        // k - rank[lo] set bits of the word are to be skipped
+        long word = bits[lo];
+        for (int j = k - rank[lo]; j > 0; j--) {
+            word &= word - 1;
+        }
+        return firstSerial + ((long) lo << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @param w
+     * @return the w-th word of the bitmap
+     */
+    public long word(final int w) {
+        return bits[w];
+    }
+
+
+    //
+    // package private methods
+    //
+
+    /**
+     * @param serial a serial number covered by the bitmap
+     * @param businessDay
+     * @return a bitmap equal to this one except for the given day
+     */
+    BusinessDayBitmap with(final long serial, final boolean businessDay) {
+        final int i = (int) (serial - firstSerial);
+        final int w = i >>> 6;
+        final long word = businessDay ? bits[w] | (1L << i) : bits[w] & ~(1L << i);
+        if (word == bits[w])
+            return this;
+        final long[] newBits = bits.clone();
+        final int[] newRank = rank.clone();
+        newBits[w] = word;
+        // the counts of all the following words move by one
+        final int delta = businessDay ? 1 : -1;
+        for (int k = w + 1; k <= words; k++) {
+            newRank[k] += delta;
+        }
+        return new BusinessDayBitmap(newBits, newRank);
+    }
+
+}
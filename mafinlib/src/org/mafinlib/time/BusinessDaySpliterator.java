@@ -0,0 +1,157 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Lazily enumerates, in increasing order, the serial numbers of the business days or of
+ * the holidays of a {@link Calendar} in a range of dates.
+ * <p>
+ * Days are read 64 at a time from {@link Calendar#businessDayWord(int)}: words without
+ * any selected day are skipped with a single test, and the selected days of a word are
+ * extracted by counting trailing zeros.
+ *
+ * @see Calendar#businessDaySpliterator(Date, Date)
+ * @see Calendar#holidaySpliterator(Date, Date, boolean)
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+final class BusinessDaySpliterator implements Spliterator.OfLong {
+
+    private static final long firstSerial = BusinessDayBitmap.firstSerial();
+
+    private final Calendar calendar;
+    private final boolean holidays;
+    // days to be skipped, indexed by the weekday of the first day of a word, or null
+    private final long[] excluded;
+
+    // bit indices of the next day to be examined and past the last day
+    private int lo;
+    private final int hi;
+
+    // the last word read from the calendar
+    private int cachedIndex = -1;
+    private long cachedWord;
+
+
+    //
+    // package private constructors
+    //
+
+    /**
+     * @param calendar
+     * @param from first serial number, inclusive
+     * @param to last serial number, inclusive
+     * @param holidays whether holidays rather than business days are enumerated
+     * @param excluded weekday masks of the days to be skipped, or null
+     */
+    BusinessDaySpliterator(final Calendar calendar, final long from, final long to, final boolean holidays, final long[] excluded) {
+        this(calendar, (int) (from - firstSerial), (int) (to - firstSerial) + 1, holidays, excluded);
+    }
+
+    private BusinessDaySpliterator(final Calendar calendar, final int lo, final int hi, final boolean holidays, final long[] excluded) {
+        this.calendar = calendar;
+        this.lo = lo;
+        this.hi = hi;
+        this.holidays = holidays;
+        this.excluded = excluded;
+    }
+
+
+    //
+    // implements Spliterator.OfLong
+    //
+
+    @Override
+    public boolean tryAdvance(final LongConsumer action) {
+        while (lo < hi) {
+            final int w = lo >>> 6;
+            final long word = word(w) & (-1L << lo);
+            if (word == 0) {
+                lo = (w + 1) << 6;
+            } else {
+                final int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                lo = i + 1;
+                action.accept(firstSerial + i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+        while (lo < hi) {
+            final int w = lo >>> 6;
+            long word = word(w) & (-1L << lo);
+            lo = (w + 1) << 6;
+            while (word != 0) {
+                action.accept(firstSerial + (w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        // split on a word boundary
+        final int mid = ((lo + hi) >>> 1) & ~63;
+        if (mid <= lo || mid >= hi)
+            return null;
+        final BusinessDaySpliterator prefix = new BusinessDaySpliterator(calendar, lo, mid, holidays, excluded);
+        lo = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return hi - lo;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL;
+    }
+
+    @Override
+    public Comparator<? super Long> getComparator() {
+        // natural order
+        return null;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * @return the selected days of the w-th word, limited to the end of the range
+     */
+    private long word(final int w) {
+        if (w != cachedIndex) {
+            long word = calendar.businessDayWord(w);
+            if (holidays)
+                word = ~word;
+            if (excluded != null)
+                word &= ~excluded[DateSerials.weekday(firstSerial + ((long) w << 6)) - 1];
+            cachedIndex = w;
+            cachedWord = word;
+        }
+        final int end = hi - (w << 6);
+        return end >= 64 ? cachedWord : cachedWord & ((1L << end) - 1);
+    }
+
+}
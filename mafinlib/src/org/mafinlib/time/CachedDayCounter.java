@@ -0,0 +1,229 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mafinlib.MFL;
+
+/**
+ * Day counter memoizing the year fractions of another one
+ * <p>
+ * Coupons revalued on every tick ask for the same year fractions over and over. This day counter
+ * keeps the last results of {@link #yearFraction(Date, Date, Date, Date)} in a bounded table keyed
+ * by the serial numbers of the four dates, and computes everything else with the given day counter.
+ * <p>
+ * The table is 4-way set associative: each key can only live in the 4 slots of its set, where the
+ * CLOCK algorithm picks the entry to evict among those which were not read since the hand last
+ * went by. Entries are immutable and published through an {@link AtomicReferenceArray}, so that
+ * readers never lock and never see a partially written entry. Concurrent misses may evict one
+ * another's entries, which costs a recomputation but never a wrong result.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class CachedDayCounter extends DayCounter {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int WAYS = 4;
+
+    private final DayCounter dayCounter;
+
+    private final AtomicReferenceArray<Entry> entries;
+    // CLOCK reference bits, one per slot, and hands, one per set; races on them only affect eviction
+    private final byte[] referenced;
+    private final byte[] hands;
+    private final int setMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+    //
+    // public constructors
+    //
+
+    public CachedDayCounter(final DayCounter dayCounter) {
+        this(dayCounter, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param dayCounter the day counter whose year fractions are cached
+     * @param capacity the maximum number of cached year fractions, rounded up to a power of 2
+     */
+    public CachedDayCounter(final DayCounter dayCounter, final int capacity) {
+        MFL.require(dayCounter != null && !dayCounter.empty(), "null day counter");
+        MFL.require(capacity > 0 && capacity <= (1 << 30), "capacity (" + capacity + ") out of range");
+        this.dayCounter = dayCounter;
+        final int slots = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.entries = new AtomicReferenceArray<Entry>(slots);
+        this.referenced = new byte[slots];
+        this.hands = new byte[slots / WAYS];
+        this.setMask = slots / WAYS - 1;
+        super.impl = new Impl();
+    }
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * @return the day counter whose year fractions are cached
+     */
+    public DayCounter dayCounter() {
+        return dayCounter;
+    }
+
+    /**
+     * @return the maximum number of cached year fractions
+     */
+    public int capacity() {
+        return entries.length();
+    }
+
+    /**
+     * @return the number of year fractions found in the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of year fractions which had to be computed
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Empties the cache and resets the counters.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+
+    //
+    // private methods
+    //
+
+    private double cachedYearFraction(final Date d1, final Date d2, final Date d3, final Date d4) {
+        final long dates = (d1.serialNumber() << 32) | d2.serialNumber();
+        final long references = (serial(d3) << 32) | serial(d4);
+        final int base = (hash(dates, references) & setMask) * WAYS;
+
+        for (int w = 0; w < WAYS; w++) {
+            final Entry e = entries.get(base + w);
+            if (e != null && e.dates == dates && e.references == references) {
+                referenced[base + w] = 1;
+                hits.increment();
+                return e.value;
+            }
+        }
+
+        misses.increment();
+        final double value = dayCounter.yearFraction(d1, d2, d3, d4);
+        entries.set(victim(base), new Entry(dates, references, value));
+        return value;
+    }
+
+    /**
+     * @return the slot of the set starting at base which is to be replaced
+     */
+    private int victim(final int base) {
+        for (int w = 0; w < WAYS; w++) {
+            if (entries.get(base + w) == null)
+                return base + w;
+        }
+        final int set = base / WAYS;
+        int hand = hands[set];
+        // the second round finds a cleared slot at the latest
+        for (int i = 0; i < 2 * WAYS; i++) {
+            final int slot = base + hand;
+            hand = (hand + 1) & (WAYS - 1);
+            if (referenced[slot] == 0) {
+                hands[set] = (byte) hand;
+                return slot;
+            }
+            referenced[slot] = 0;
+        }
+        hands[set] = (byte) hand;
+        return base + hand;
+    }
+
+    private static long serial(final Date d) {
+        return d == null || d.isNull() ? 0 : d.serialNumber();
+    }
+
+    private static int hash(final long dates, final long references) {
+        long h = dates * 0x9E3779B97F4A7C15L + references;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    private static final class Entry {
+
+        private final long dates;
+        private final long references;
+        private final double value;
+
+        private Entry(final long dates, final long references, final double value) {
+            this.dates = dates;
+            this.references = references;
+            this.value = value;
+        }
+    }
+
+    private final class Impl extends DayCounter.Impl {
+
+        @Override
+        protected String name() {
+            return dayCounter.name();
+        }
+
+        @Override
+        protected double yearFraction(final Date dateStart, final Date dateEnd,
+                final Date refPeriodStart, final Date refPeriodEnd) {
+            return cachedYearFraction(dateStart, dateEnd, refPeriodStart, refPeriodEnd);
+        }
+
+        @Override
+        protected long dayCount(final Date dateStart, final Date dateEnd) {
+            return dayCounter.dayCount(dateStart, dateEnd);
+        }
+
+        @Override
+        protected void dayCounts(final long[] start, final long[] end, final long[] out) {
+            dayCounter.dayCounts(start, end, out);
+        }
+
+        @Override
+        protected void yearFractions(final long[] start, final long[] end, final double[] out) {
+            dayCounter.yearFractions(start, end, out);
+        }
+    }
+
+}
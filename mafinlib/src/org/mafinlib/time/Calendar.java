@@ -12,9 +12,17 @@
 package org.mafinlib.time;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
 
 
 import org.mafinlib.MFL;
@@ -30,6 +38,79 @@ public class Calendar {
     public static final String UKNOWN_BUSINESS_DAY_CONVENTION = "Unknown business day convention";
 
 
+    //
+    // private static fields
+    //
+
+    // Easter Monday tables, expressed relative to the first day of the year and shared by all the calendars
+
+    private static final short westernEasterMonday[] = {
+                 98,  90, 103,  95, 114, 106,  91, 111, 102,   // 1901-1909
+            87, 107,  99,  83, 103,  95, 115,  99,  91, 111,   // 1910-1919
+            96,  87, 107,  92, 112, 103,  95, 108, 100,  91,   // 1920-1929
+           111,  96,  88, 107,  92, 112, 104,  88, 108, 100,   // 1930-1939
+            85, 104,  96, 116, 101,  92, 112,  97,  89, 108,   // 1940-1949
+           100,  85, 105,  96, 109, 101,  93, 112,  97,  89,   // 1950-1959
+           109,  93, 113, 105,  90, 109, 101,  86, 106,  97,   // 1960-1969
+            89, 102,  94, 113, 105,  90, 110, 101,  86, 106,   // 1970-1979
+            98, 110, 102,  94, 114,  98,  90, 110,  95,  86,   // 1980-1989
+           106,  91, 111, 102,  94, 107,  99,  90, 103,  95,   // 1990-1999
+           115, 106,  91, 111, 103,  87, 107,  99,  84, 103,   // 2000-2009
+            95, 115, 100,  91, 111,  96,  88, 107,  92, 112,   // 2010-2019
+           104,  95, 108, 100,  92, 111,  96,  88, 108,  92,   // 2020-2029
+           112, 104,  89, 108, 100,  85, 105,  96, 116, 101,   // 2030-2039
+            93, 112,  97,  89, 109, 100,  85, 105,  97, 109,   // 2040-2049
+           101,  93, 113,  97,  89, 109,  94, 113, 105,  90,   // 2050-2059
+           110, 101,  86, 106,  98,  89, 102,  94, 114, 105,   // 2060-2069
+            90, 110, 102,  86, 106,  98, 111, 102,  94, 114,   // 2070-2079
+            99,  90, 110,  95,  87, 106,  91, 111, 103,  94,   // 2080-2089
+           107,  99,  91, 103,  95, 115, 107,  91, 111, 103,   // 2090-2099
+            88, 108, 100,  85, 105,  96, 109, 101,  93, 112,   // 2100-2109
+            97,  89, 109,  93, 113, 105,  90, 109, 101,  86,   // 2110-2119
+           106,  97,  89, 102,  94, 113, 105,  90, 110, 101,   // 2120-2129
+            86, 106,  98, 110, 102,  94, 114,  98,  90, 110,   // 2130-2139
+            95,  86, 106,  91, 111, 102,  94, 107,  99,  90,   // 2140-2149
+           103,  95, 115, 106,  91, 111, 103,  87, 107,  99,   // 2150-2159
+            84, 103,  95, 115, 100,  91, 111,  96,  88, 107,   // 2160-2169
+            92, 112, 104,  95, 108, 100,  92, 111,  96,  88,   // 2170-2179
+           108,  92, 112, 104,  89, 108, 100,  85, 105,  96,   // 2180-2189
+           116, 101,  93, 112,  97,  89, 109, 100,  85, 105    // 2190-2199
+    };
+
+    private static final short orthodoxEasterMonday[] = {
+                 105, 118, 110, 102, 121, 106, 126, 118, 102,   // 1901-1909
+            122, 114,  99, 118, 110,  95, 115, 106, 126, 111,   // 1910-1919
+            103, 122, 107,  99, 119, 110, 123, 115, 107, 126,   // 1920-1929
+            111, 103, 123, 107,  99, 119, 104, 123, 115, 100,   // 1930-1939
+            120, 111,  96, 116, 108, 127, 112, 104, 124, 115,   // 1940-1949
+            100, 120, 112,  96, 116, 108, 128, 112, 104, 124,   // 1950-1959
+            109, 100, 120, 105, 125, 116, 101, 121, 113, 104,   // 1960-1969
+            117, 109, 101, 120, 105, 125, 117, 101, 121, 113,   // 1970-1979
+             98, 117, 109, 129, 114, 105, 125, 110, 102, 121,   // 1980-1989
+            106,  98, 118, 109, 122, 114, 106, 118, 110, 102,   // 1990-1999
+            122, 106, 126, 118, 103, 122, 114,  99, 119, 110,   // 2000-2009
+             95, 115, 107, 126, 111, 103, 123, 107,  99, 119,   // 2010-2019
+            111, 123, 115, 107, 127, 111, 103, 123, 108,  99,   // 2020-2029
+            119, 104, 124, 115, 100, 120, 112,  96, 116, 108,   // 2030-2039
+            128, 112, 104, 124, 116, 100, 120, 112,  97, 116,   // 2040-2049
+            108, 128, 113, 104, 124, 109, 101, 120, 105, 125,   // 2050-2059
+            117, 101, 121, 113, 105, 117, 109, 101, 121, 105,   // 2060-2069
+            125, 110, 102, 121, 113,  98, 118, 109, 129, 114,   // 2070-2079
+            106, 125, 110, 102, 122, 106,  98, 118, 110, 122,   // 2080-2089
+            114,  99, 119, 110, 102, 115, 107, 126, 118, 103,   // 2090-2099
+            123, 115, 100, 120, 112,  96, 116, 108, 128, 112,   // 2100-2109
+            104, 124, 109, 100, 120, 105, 125, 116, 108, 121,   // 2110-2119
+            113, 104, 124, 109, 101, 120, 105, 125, 117, 101,   // 2120-2129
+            121, 113,  98, 117, 109, 129, 114, 105, 125, 110,   // 2130-2139
+            102, 121, 113,  98, 118, 109, 129, 114, 106, 125,   // 2140-2149
+            110, 102, 122, 106, 126, 118, 103, 122, 114,  99,   // 2150-2159
+            119, 110, 102, 115, 107, 126, 111, 103, 123, 114,   // 2160-2169
+             99, 119, 111, 130, 115, 107, 127, 111, 103, 123,   // 2170-2179
+            108,  99, 119, 104, 124, 115, 100, 120, 112, 103,   // 2180-2189
+            116, 108, 128, 119, 104, 124, 116, 100, 120, 112    // 2190-2199
+    };
+
+
     //
     // protected fields
     //
@@ -73,15 +154,39 @@ public class Calendar {
         return impl.name();
     }
 
+    /**
+     * Switches the calendar to compiled mode.
+     * <p>
+     * When first used afterwards, the calendar evaluates its holiday rules once for every
+     * allowed date and stores the result in a {@link BusinessDayBitmap}. From then on
+     * {@link #isBusinessDay(Date)}, {@link #isHoliday(Date)} and {@link #isEndOfMonth(Date)}
+     * are bit tests, {@link #businessDaysBetween(Date, Date, boolean, boolean)} takes two
+     * rank lookups, advancing by business days is a rank and a select lookup, and {@link #addHoliday(Date)} and {@link #removeHoliday(Date)} patch
+     * the affected bit.
+     *
+     * @return this calendar
+     */
+    public Calendar compile() {
+        impl.compiled = true;
+        return this;
+    }
+
+    /**
+     * @return whether the calendar is in compiled mode
+     * @see #compile()
+     */
+    public boolean isCompiled() /* @ReadOnly */{
+        return impl.compiled;
+    }
+
     /**
      * Returns <tt>true</tt> if the date is a business day for the given market.
      */
     public boolean isBusinessDay(final Date d) /* @ReadOnly */{
-        if (impl.addedHolidays.contains(d))
-            return false;
-        if (impl.removedHolidays.contains(d))
-            return true;
-        return impl.isBusinessDay(d);
+        final Overrides overrides = overrides();
+        if (overrides.bitmap != null && BusinessDayBitmap.covers(d.serialNumber()))
+            return overrides.bitmap.isBusinessDay(d.serialNumber());
+        return evaluate(overrides, d);
     }
 
     /**
@@ -104,7 +209,7 @@ public class Calendar {
      * given market.
      */
     public boolean isEndOfMonth(final Date d) /* @ReadOnly */{
-        return (d.month() != adjust(d.add(1)).month());
+        return isEndOfMonth(overrides(), d.serialNumber());
     }
 
     /**
@@ -122,15 +227,16 @@ public class Calendar {
      * <p>
      * <b>NOTE</b>: This method does not affect <i>pre-defined</i> calendars, returning
      * silently.
+     * <p>
+     * The change is published atomically: threads using the calendar concurrently see
+     * either the previous or the new set of holidays, never a partial update.
      * */
     public void addHoliday(final Date d) {
-        // if d was a genuine holiday previously removed, revert the change
-        impl.removedHolidays.remove(d);
-        // if it's already a holiday, leave the calendar alone.
-        // Otherwise, add it.
-        if (impl.isBusinessDay(d)) {
-            impl.addedHolidays.add(d);
-        }
+        final boolean genuine = !impl.isBusinessDay(d);
+        Overrides current;
+        do {
+            current = impl.overrides.get();
+        } while (!impl.overrides.compareAndSet(current, current.addHoliday(d.intern(), genuine)));
     }
 
     /**
@@ -138,15 +244,39 @@ public class Calendar {
      * <p>
      * <b>NOTE</b>: This method does not affect <i>pre-defined</i> calendars, returning
      * silently.
+     * <p>
+     * The change is published atomically, see {@link #addHoliday(Date)}.
      */
     public void removeHoliday(final Date d) {
-        // if d was an artificially-added holiday, revert the change
-        impl.addedHolidays.remove(d);
-        // if it's already a business day, leave the calendar alone.
-        // Otherwise, add it.
-        if (!impl.isBusinessDay(d)) {
-            impl.removedHolidays.add(d);
-        }
+        final boolean genuine = !impl.isBusinessDay(d);
+        Overrides current;
+        do {
+            current = impl.overrides.get();
+        } while (!impl.overrides.compareAndSet(current, current.removeHoliday(d.intern(), genuine)));
+    }
+
+    /**
+     * Returns a number which changes whenever the business days of the calendar change,
+     * i.e. whenever a holiday is added or removed, here or in any calendar this one is
+     * built from. Caches of adjusted dates can store it and compare it on use.
+     * <p>
+     * Versions are drawn from a counter shared by all calendars, so that a version other
+     * than 0 names exactly one set of business days, whichever the calendar instance.
+     * Version 0 stands for the rules of the calendar alone, without any holiday added or
+     * removed; caches shared between calendars must also key on the calendar itself.
+     */
+    public long version() /* @ReadOnly */{
+        final long version = impl.overrides.get().version;
+        final long dependencyVersion = impl.dependencyVersion();
+        if (dependencyVersion == 0)
+            return version;
+        final long[] stamp = impl.versionStamp;
+        if (stamp != null && stamp[0] == version && stamp[1] == dependencyVersion)
+            return stamp[2];
+        // racing threads may publish different versions for the same state, which is harmless
+        final long published = Overrides.nextVersion();
+        impl.versionStamp = new long[] { version, dependencyVersion, published };
+        return published;
     }
 
     /**
@@ -154,17 +284,67 @@ public class Calendar {
      */
     public static List<Date> holidayList(final Calendar c, final Date from, final Date to, final boolean includeWeekEnds) {
 
+        final long[] serials = holidaySerials(c, from, to, includeWeekEnds);
+        final List<Date> result = new ArrayList<Date>(serials.length);
+        for (final long s : serials) {
+            result.add(Date.of(s));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the serial numbers of the holidays between two dates
+     *
+     * @see #holidayList(Calendar, Date, Date, boolean)
+     */
+    public static long[] holidaySerials(final Calendar c, final Date from, final Date to, final boolean includeWeekEnds) {
+
         MFL.require(to.gt(from), "'from' date (" + from.toString()
                 + ") must be earlier than 'to' date (" + to.toString() + ")");
 
-        final List<Date> result = new ArrayList<Date>();
-        for (Date d = from.clone(); d.le(to); d=d.add(1)) {
-            if (c.isHoliday(d)
-                    && (includeWeekEnds || !c.isWeekend(d.weekday()))) {
-                result.add(d);
-            }
-        }
-        return result;
+        return StreamSupport.longStream(c.holidaySpliterator(from, to, includeWeekEnds), false).toArray();
+    }
+
+    /**
+     * Returns a lazy iterator over the serial numbers of the holidays between two dates,
+     * both included, in increasing order.
+     *
+     * @param includeWeekEnds whether the days of the weekend are returned
+     */
+    public PrimitiveIterator.OfLong holidays(final Date from, final Date to, final boolean includeWeekEnds) {
+        return Spliterators.iterator(holidaySpliterator(from, to, includeWeekEnds));
+    }
+
+    /**
+     * Returns a lazy iterator over the serial numbers of the business days between two dates,
+     * both included, in increasing order.
+     */
+    public PrimitiveIterator.OfLong businessDays(final Date from, final Date to) {
+        return Spliterators.iterator(businessDaySpliterator(from, to));
+    }
+
+    /**
+     * Returns a spliterator over the serial numbers of the holidays between two dates,
+     * both included, in increasing order. Days are examined 64 at a time and the spliterator
+     * splits on those boundaries.
+     *
+     * @param includeWeekEnds whether the days of the weekend are returned
+     */
+    public Spliterator.OfLong holidaySpliterator(final Date from, final Date to, final boolean includeWeekEnds) {
+        checkRange(from, to);
+        return new BusinessDaySpliterator(this, from.serialNumber(), to.serialNumber(), true,
+                includeWeekEnds ? null : weekendMasks());
+    }
+
+    /**
+     * Returns a spliterator over the serial numbers of the business days between two dates,
+     * both included, in increasing order.
+     *
+     * @see #holidaySpliterator(Date, Date, boolean)
+     */
+    public Spliterator.OfLong businessDaySpliterator(final Date from, final Date to) {
+        checkRange(from, to);
+        return new BusinessDaySpliterator(this, from.serialNumber(), to.serialNumber(), false, null);
     }
 
     /**
@@ -187,26 +367,29 @@ public class Calendar {
      * @note The input date is not modified
      */
     public Date adjust(final Date d, final BusinessDayConvention c) /* @ReadOnly */ {
-        if (c == BusinessDayConvention.Unadjusted)
-            return d.clone();
-        final Date d1 = d.clone();
-        if (c == BusinessDayConvention.Following || c == BusinessDayConvention.ModifiedFollowing) {
-            while (isHoliday(d1)) {
-                d1.inc();
-            }
-            if (c == BusinessDayConvention.ModifiedFollowing) {
-                if (d1.month() != d.month())
-                    return adjust(d, BusinessDayConvention.Preceding);
-            }
-        } else if (c == BusinessDayConvention.Preceding || c == BusinessDayConvention.ModifiedPreceding) {
-            while (isHoliday(d1)) {
-                d1.dec();
-            }
-            if (c == BusinessDayConvention.ModifiedPreceding && d1.month() != d.month())
-                return adjust(d, BusinessDayConvention.Following);
-        } else
-            throw new LibraryException(UKNOWN_BUSINESS_DAY_CONVENTION);
-        return d1;
+        return Date.of(adjust(overrides(), d.serialNumber(), c));
+    }
+
+    /**
+     * Adjusts an array of dates, given as serial numbers, with respect to the given convention.
+     * <p>
+     * The whole array is adjusted against the same snapshot of the holidays, and no
+     * {@link Date} is created. For compiled calendars, finding the nearest business day
+     * takes a scan of the bitmap words.
+     *
+     * @param serials the serial numbers of the dates to be adjusted
+     * @param c the business day convention
+     * @param out receives the adjusted serial numbers, it can be <code>serials</code> itself
+     * @return out
+     * @see #adjust(Date, BusinessDayConvention)
+     */
+    public long[] adjust(final long[] serials, final BusinessDayConvention c, final long[] out) /* @ReadOnly */ {
+        MFL.require(out.length >= serials.length, "output array shorter than the input");
+        final Overrides overrides = overrides();
+        for (int i = 0; i < serials.length; i++) {
+            out[i] = adjust(overrides, serials[i], c);
+        }
+        return out;
     }
 
     /**
@@ -267,45 +450,43 @@ public class Calendar {
      */
     public Date advance(
             final Date d,
-            int n,
+            final int n,
             final TimeUnit unit,
             final BusinessDayConvention c,
             final boolean endOfMonth) /* @ReadOnly */{
         MFL.require(d != null && !d.isNull(), "null date");
-        if (n == 0)
-            return adjust(d, c);
-        else if (unit == TimeUnit.Days) {
-            final Date d1 = d.clone();
-            if (n > 0) {
-                while (n > 0) {
-                    d1.inc();
-                    while (isHoliday(d1)) {
-                        d1.inc();
-                    }
-                    n--;
-                }
-            } else {
-                while (n < 0) {
-                    d1.dec();
-                    while (isHoliday(d1)) {
-                        d1.dec();
-                    }
-                    n++;
-                }
-            }
-            return d1;
-        } else if (unit == TimeUnit.Weeks) {
-            final Date d1 = d.add(new Period(n, unit));
-            return adjust(d1, c);
-        } else {
-            final Date d1 = d.add(new Period(n, unit));
-
-            // we are sure the unit is Months or Years
-            if (endOfMonth && isEndOfMonth(d))
-                return endOfMonth(d1);
+        return Date.of(advance(overrides(), d.serialNumber(), n, unit, c, endOfMonth));
+    }
 
-            return adjust(d1, c);
+    /**
+     * Advances an array of dates, given as serial numbers, as specified by the given period.
+     * <p>
+     * The whole array is advanced against the same snapshot of the holidays, and no
+     * {@link Date} is created.
+     *
+     * @param serials the serial numbers of the dates to be advanced
+     * @param period the period, business days if its units are {@link TimeUnit#Days}
+     * @param c the business day convention
+     * @param endOfMonth whether dates at the end of month are moved to the end of month
+     * @param out receives the advanced serial numbers, it can be <code>serials</code> itself
+     * @return out
+     * @see #advance(Date, Period, BusinessDayConvention, boolean)
+     */
+    public long[] advance(
+            final long[] serials,
+            final Period period,
+            final BusinessDayConvention c,
+            final boolean endOfMonth,
+            final long[] out) /* @ReadOnly */{
+        MFL.require(out.length >= serials.length, "output array shorter than the input");
+        final int n = period.length();
+        final TimeUnit unit = period.units();
+        final Overrides overrides = overrides();
+        for (int i = 0; i < serials.length; i++) {
+            MFL.require(serials[i] != 0, "null date");
+            out[i] = advance(overrides, serials[i], n, unit, c, endOfMonth);
         }
+        return out;
     }
 
     /**
@@ -316,14 +497,35 @@ public class Calendar {
         return businessDaysBetween(from, to, true, false);
     }
 
+    /**
+     * Calculates the number of business days between two given dates and
+     * returns the result. The result is negative if <code>from</code> is
+     * later than <code>to</code>.
+     * <p>
+     * Compiled calendars answer with two rank lookups, whatever the distance between the dates.
+     */
     public int businessDaysBetween(final Date from, final Date to,
             final boolean includeFirst, final boolean includeLast) /* @ReadOnly */{
+        final BusinessDayBitmap bitmap = bitmap();
+        if (bitmap != null && BusinessDayBitmap.covers(from.serialNumber()) && BusinessDayBitmap.covers(to.serialNumber())) {
+            final long f = from.serialNumber();
+            final long t = to.serialNumber();
+            if (f == t)
+                return 0;
+            int wd = bitmap.countBusinessDays(Math.min(f, t), Math.max(f, t));
+            if (!includeFirst && bitmap.isBusinessDay(f))
+                wd--;
+            if (!includeLast && bitmap.isBusinessDay(t))
+                wd--;
+            return f > t ? -wd : wd;
+        }
+
         int wd = 0;
         if (from.ne(to)) {
             if (from.lt(to)) {
                 // the last one is treated separately to avoid
                 // incrementing Date::maxDate()
-                for (Date d = from.clone(); d.lt(to); d=d.add(1)) {
+                for (Date d = from; d.lt(to); d=d.add(1)) {
                     if (isBusinessDay(d)) {
                         ++wd;
                     }
@@ -332,7 +534,7 @@ public class Calendar {
                     ++wd;
                 }
             } else if (from.gt(to)) {
-                for (Date d = to.clone(); d.lt(from); d=d.add(1)) {
+                for (Date d = to; d.lt(from); d=d.add(1)) {
                     if (isBusinessDay(d)) {
                         ++wd;
                     }
@@ -371,14 +573,420 @@ public class Calendar {
     }
 
 
+    //
+    // package private methods
+    //
+
+    /**
+     * Returns the business days of the w-th 64-day word of the {@link BusinessDayBitmap} range,
+     * from the bitmap if the calendar is compiled and from the holiday rules otherwise.
+     */
+    long businessDayWord(final int w) {
+        final Overrides overrides = overrides();
+        if (overrides.bitmap != null)
+            return overrides.bitmap.word(w);
+        final long start = BusinessDayBitmap.firstSerial() + ((long) w << 6);
+        final long end = Math.min(start + 63, BusinessDayBitmap.lastSerial());
+        long word = 0;
+        for (long s = start; s <= end; s++) {
+            if (evaluate(overrides, new Date(s)))
+                word |= 1L << (s - start);
+        }
+        return word;
+    }
+
+    /**
+     * Serial number version of {@link #adjust(Date, BusinessDayConvention)}
+     */
+    long adjust(final long serial, final BusinessDayConvention c) {
+        return adjust(overrides(), serial, c);
+    }
+
+    /**
+     * Serial number version of {@link #isEndOfMonth(Date)}
+     */
+    boolean isEndOfMonth(final long serial) {
+        return isEndOfMonth(overrides(), serial);
+    }
+
+    /**
+     * Serial number version of {@link #endOfMonth(Date)}
+     */
+    long endOfMonth(final long serial) {
+        return preceding(overrides(), DateSerials.endOfMonth(serial));
+    }
+
+    /**
+     * Compiles the calendar and builds its bitmap right away, instead of on the first query.
+     */
+    void warmUp() {
+        compile();
+        overrides();
+    }
+
+    /**
+     * @see Impl#rulesVersion()
+     */
+    long rulesVersion() {
+        return impl.rulesVersion();
+    }
+
+    /**
+     * Compiles the calendar and returns its bitmap together with the holidays added and removed
+     * by the user, as read from a single snapshot.
+     */
+    CalendarStore.Record record() {
+        compile();
+        final Overrides overrides = overrides();
+        final long[] bits = new long[BusinessDayBitmap.wordCount()];
+        for (int w = 0; w < bits.length; w++) {
+            bits[w] = overrides.bitmap.word(w);
+        }
+        return new CalendarStore.Record(name(), impl.rulesVersion(), overrides.dependencyVersion,
+                bits, serials(overrides.added), serials(overrides.removed));
+    }
+
+    /**
+     * Compiles the calendar with a bitmap read by {@link CalendarStore}. Nothing is done if the
+     * calendar already has holidays added or removed, or a bitmap of its own, or if either the
+     * record or the calendar depends on calendars whose holidays were changed.
+     *
+     * @return whether the record was installed
+     */
+    boolean install(final CalendarStore.Record r) {
+        final Overrides current = impl.overrides.get();
+        if (current.version != 0 || current.bitmap != null)
+            return false;
+        // dependency versions only tell whether something changed, not what
+        if (r.dependencyVersion != 0 || impl.dependencyVersion() != 0)
+            return false;
+        final Set<Date> added = dates(r.added);
+        final Set<Date> removed = dates(r.removed);
+        final long version = added.isEmpty() && removed.isEmpty() ? 0 : Overrides.nextVersion();
+        final Overrides loaded = new Overrides(added, removed, version, new BusinessDayBitmap(r.bits), 0);
+        impl.compiled = true;
+        return impl.overrides.compareAndSet(current, loaded);
+    }
+
+
+    //
+    // private methods
+    //
+
+    private static void checkRange(final Date from, final Date to) {
+        MFL.require(BusinessDayBitmap.covers(from.serialNumber()) && BusinessDayBitmap.covers(to.serialNumber()),
+                "dates must be between " + Date.minDate() + " and " + Date.maxDate());
+    }
+
+    /**
+     * @return for each weekday, the days of the weekend in a 64-day word starting on that weekday
+     */
+    private long[] weekendMasks() {
+        long[] masks = impl.weekendMasks;
+        if (masks == null) {
+            masks = new long[7];
+            for (int first = 0; first < 7; first++) {
+                for (int j = 0; j < 64; j++) {
+                    if (impl.isWeekend(Weekday.valueOf((first + j) % 7 + 1)))
+                        masks[first] |= 1L << j;
+                }
+            }
+            impl.weekendMasks = masks;
+        }
+        return masks;
+    }
+
+    /**
+     * Evaluates the holiday rules and the user defined holidays
+     */
+    private boolean evaluate(final Overrides overrides, final Date d) {
+        if (overrides.added.contains(d))
+            return false;
+        if (overrides.removed.contains(d))
+            return true;
+        return impl.isBusinessDay(d);
+    }
+
+    /**
+     * @return the business day bitmap, built on first use, or null if the calendar is not compiled
+     */
+    private BusinessDayBitmap bitmap() {
+        return overrides().bitmap;
+    }
+
+    /**
+     * Returns the current overrides. If the calendar is compiled, the returned snapshot
+     * carries a bitmap which is up to date with the rules and the overrides.
+     */
+    private Overrides overrides() {
+        Overrides current = impl.overrides.get();
+        if (current.bitmap == null ? !impl.compiled : current.dependencyVersion == impl.dependencyVersion())
+            return current;
+        // build once, readers which find an up to date bitmap never get here
+        synchronized (impl) {
+            for (;;) {
+                current = impl.overrides.get();
+                final long dependencyVersion = impl.dependencyVersion();
+                if (current.bitmap != null && current.dependencyVersion == dependencyVersion)
+                    return current;
+                final long[] bits = impl.businessDayWords();
+                // user defined holidays take precedence over the rules
+                for (final Date d : current.removed) {
+                    setBit(bits, d.serialNumber(), true);
+                }
+                for (final Date d : current.added) {
+                    setBit(bits, d.serialNumber(), false);
+                }
+                final Overrides compiled = current.withBitmap(new BusinessDayBitmap(bits), dependencyVersion);
+                // retry if holidays were added or removed in the meantime
+                if (impl.overrides.compareAndSet(current, compiled))
+                    return compiled;
+            }
+        }
+    }
+
+    private boolean isBusinessDay(final Overrides overrides, final long s) {
+        if (overrides.bitmap != null && BusinessDayBitmap.covers(s))
+            return overrides.bitmap.isBusinessDay(s);
+        return evaluate(overrides, Date.of(s));
+    }
+
+    private boolean isEndOfMonth(final Overrides overrides, final long s) {
+        final long eom = DateSerials.endOfMonth(s);
+        // the next business day belongs to the next month
+        if (overrides.bitmap != null && BusinessDayBitmap.covers(s) && eom < BusinessDayBitmap.lastSerial())
+            return !overrides.bitmap.anyBusinessDay(s + 1, eom);
+        return DateSerials.month(s) != DateSerials.month(following(overrides, s + 1));
+    }
+
+    /**
+     * @return the first business day on or after s
+     */
+    private long following(final Overrides overrides, long s) {
+        if (overrides.bitmap != null && BusinessDayBitmap.covers(s)) {
+            final long result = overrides.bitmap.nextBusinessDay(s);
+            if (result > 0)
+                return result;
+        }
+        while (!isBusinessDay(overrides, s)) {
+            s++;
+        }
+        return s;
+    }
+
+    /**
+     * @return the last business day on or before s
+     */
+    private long preceding(final Overrides overrides, long s) {
+        if (overrides.bitmap != null && BusinessDayBitmap.covers(s)) {
+            final long result = overrides.bitmap.previousBusinessDay(s);
+            if (result > 0)
+                return result;
+        }
+        while (!isBusinessDay(overrides, s)) {
+            s--;
+        }
+        return s;
+    }
+
+    private long adjust(final Overrides overrides, final long s, final BusinessDayConvention c) {
+        if (c == BusinessDayConvention.Unadjusted)
+            return s;
+        if (c == BusinessDayConvention.Following || c == BusinessDayConvention.ModifiedFollowing) {
+            final long d1 = following(overrides, s);
+            if (c == BusinessDayConvention.ModifiedFollowing && DateSerials.month(d1) != DateSerials.month(s))
+                return preceding(overrides, s);
+            return d1;
+        } else if (c == BusinessDayConvention.Preceding || c == BusinessDayConvention.ModifiedPreceding) {
+            final long d1 = preceding(overrides, s);
+            if (c == BusinessDayConvention.ModifiedPreceding && DateSerials.month(d1) != DateSerials.month(s))
+                return following(overrides, s);
+            return d1;
+        } else
+            throw new LibraryException(UKNOWN_BUSINESS_DAY_CONVENTION);
+    }
+
+    private long advance(
+            final Overrides overrides,
+            final long s,
+            int n,
+            final TimeUnit unit,
+            final BusinessDayConvention c,
+            final boolean endOfMonth) {
+        if (n == 0)
+            return adjust(overrides, s, c);
+        else if (unit == TimeUnit.Days) {
+            final BusinessDayBitmap bitmap = overrides.bitmap;
+            if (bitmap != null && BusinessDayBitmap.covers(s)) {
+                // index of the target among all the business days of the bitmap
+                final long k = n > 0
+                        ? bitmap.rank(s + 1) + (long) n - 1
+                        : bitmap.rank(s) + (long) n;
+                if (k >= 0 && k < bitmap.businessDayCount())
+                    return bitmap.select((int) k);
+            }
+            // not compiled, or the target lies outside the bitmap
+            long d1 = s;
+            while (n > 0) {
+                d1 = following(overrides, d1 + 1);
+                n--;
+            }
+            while (n < 0) {
+                d1 = preceding(overrides, d1 - 1);
+                n++;
+            }
+            return d1;
+        } else if (unit == TimeUnit.Weeks) {
+            return adjust(overrides, DateSerials.add(s, n, unit), c);
+        } else {
+            final long d1 = DateSerials.add(s, n, unit);
+
+            // we are sure the unit is Months or Years
+            if (endOfMonth && isEndOfMonth(overrides, s))
+                return preceding(overrides, DateSerials.endOfMonth(d1));
+
+            return adjust(overrides, d1, c);
+        }
+    }
+
+    private static long[] serials(final Set<Date> dates) {
+        final long[] result = new long[dates.size()];
+        int i = 0;
+        for (final Date d : dates) {
+            result[i++] = d.serialNumber();
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static Set<Date> dates(final long[] serials) {
+        if (serials.length == 0)
+            return Collections.<Date>emptySet();
+        final Set<Date> result = new HashSet<Date>();
+        for (final long s : serials) {
+            result.add(Date.of(s));
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static void setBit(final long[] bits, final long serial, final boolean businessDay) {
+        if (BusinessDayBitmap.covers(serial)) {
+            final int i = (int) (serial - BusinessDayBitmap.firstSerial());
+            if (businessDay)
+                bits[i >>> 6] |= 1L << i;
+            else
+                bits[i >>> 6] &= ~(1L << i);
+        }
+    }
+
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Immutable snapshot of the user defined holidays of a calendar and, for compiled
+     * calendars, of the resulting bitmap.
+     * <p>
+     * Changes are made by creating a new snapshot and publishing it with a compare and set,
+     * so that readers never lock and always see a consistent state.
+     */
+    private static final class Overrides {
+
+        // source of the versions of all the calendars, see Calendar.version()
+        private static final AtomicLong VERSIONS = new AtomicLong();
+
+        private static final Overrides EMPTY = new Overrides(
+                Collections.<Date>emptySet(), Collections.<Date>emptySet(), 0, null, 0);
+
+        private final Set<Date> added;
+        private final Set<Date> removed;
+        private final long version;
+        private final BusinessDayBitmap bitmap;
+        // dependency version the bitmap was built with
+        private final long dependencyVersion;
+
+        private Overrides(final Set<Date> added, final Set<Date> removed, final long version,
+                final BusinessDayBitmap bitmap, final long dependencyVersion) {
+            this.added = added;
+            this.removed = removed;
+            this.version = version;
+            this.bitmap = bitmap;
+            this.dependencyVersion = dependencyVersion;
+        }
+
+        /**
+         * @param genuine whether the rules make d a holiday
+         */
+        private Overrides addHoliday(final Date d, final boolean genuine) {
+            // if d was a genuine holiday previously removed, revert the change
+            final Set<Date> removed = without(this.removed, d);
+            // if it's already a holiday, leave the calendar alone.
+            // Otherwise, add it.
+            final Set<Date> added = genuine ? this.added : with(this.added, d);
+            return new Overrides(added, removed, nextVersion(), patch(d, false), dependencyVersion);
+        }
+
+        /**
+         * @param genuine whether the rules make d a holiday
+         */
+        private Overrides removeHoliday(final Date d, final boolean genuine) {
+            // if d was an artificially-added holiday, revert the change
+            final Set<Date> added = without(this.added, d);
+            // if it's already a business day, leave the calendar alone.
+            // Otherwise, add it.
+            final Set<Date> removed = genuine ? with(this.removed, d) : this.removed;
+            return new Overrides(added, removed, nextVersion(), patch(d, true), dependencyVersion);
+        }
+
+        private static long nextVersion() {
+            return VERSIONS.incrementAndGet();
+        }
+
+        private Overrides withBitmap(final BusinessDayBitmap bitmap, final long dependencyVersion) {
+            return new Overrides(added, removed, version, bitmap, dependencyVersion);
+        }
+
+        private BusinessDayBitmap patch(final Date d, final boolean businessDay) {
+            if (bitmap == null || !BusinessDayBitmap.covers(d.serialNumber()))
+                return bitmap;
+            return bitmap.with(d.serialNumber(), businessDay);
+        }
+
+        private static Set<Date> with(final Set<Date> set, final Date d) {
+            if (set.contains(d))
+                return set;
+            final Set<Date> result = new HashSet<Date>(set);
+            result.add(d);
+            return Collections.unmodifiableSet(result);
+        }
+
+        private static Set<Date> without(final Set<Date> set, final Date d) {
+            if (!set.contains(d))
+                return set;
+            final Set<Date> result = new HashSet<Date>(set);
+            result.remove(d);
+            return Collections.unmodifiableSet(result);
+        }
+    }
+
+
     //
     // protected inner classes
     //
 
     protected abstract class Impl {
 
-        private final Set<Date> addedHolidays = new HashSet<Date>();
-        private final Set<Date> removedHolidays = new HashSet<Date>();
+        // user defined holidays, replaced as a whole on every change
+        private final AtomicReference<Overrides> overrides = new AtomicReference<Overrides>(Overrides.EMPTY);
+
+        // compiled mode, see Calendar.compile()
+        private volatile boolean compiled;
+        private volatile long[] weekendMasks;
+
+        // version published for an overrides version and a dependency version, see Calendar.version()
+        private volatile long[] versionStamp;
 
         protected Impl() {
             // only extended classes can instantiate
@@ -388,44 +996,66 @@ public class Calendar {
         public abstract boolean isBusinessDay(final Date d);
         public abstract boolean isWeekend(Weekday w);
 
+        /**
+         * Evaluates the rules, without the user defined holidays, for all the dates
+         * covered by the {@link BusinessDayBitmap}. Extended classes may override it when
+         * they can compute the words of the bitmap more efficiently.
+         *
+         * @return the words of the bitmap
+         */
+        protected long[] businessDayWords() {
+            final long first = BusinessDayBitmap.firstSerial();
+            final long[] bits = new long[BusinessDayBitmap.wordCount()];
+            for (long s = first; s <= BusinessDayBitmap.lastSerial(); s++) {
+                if (isBusinessDay(new Date(s))) {
+                    bits[(int) (s - first) >>> 6] |= 1L << (s - first);
+                }
+            }
+            return bits;
+        }
+
+        /**
+         * Calendars whose rules depend on other calendars return a number which changes
+         * whenever any of those changes, e.g. the sum of their versions, which only grow. A bitmap built
+         * with a different dependency version is built again.
+         *
+         * @return 0, the rules of this calendar do not change
+         * @see Calendar#version()
+         */
+        protected long dependencyVersion() {
+            return 0;
+        }
+
+        /**
+         * Identifies the holiday rules of the calendar: bitmaps persisted by {@link CalendarStore}
+         * are only loaded back by calendars with the same rules version.
+         *
+         * @return a hash of the name of the implementation class and of its {@link #rulesRevision() revision}
+         */
+        protected long rulesVersion() {
+            final String className = getClass().getName();
+            long h = 1125899906842597L;
+            for (int i = 0; i < className.length(); i++) {
+                h = 31 * h + className.charAt(i);
+            }
+            return 31 * h + rulesRevision();
+        }
+
+        /**
+         * Revision of the holiday rules. Implementations must increase it whenever they change
+         * their rules, e.g. when a holiday is fixed, so that persisted bitmaps are built again.
+         *
+         * @return 0
+         */
+        protected int rulesRevision() {
+            return 0;
+        }
+
     }
 
 
     protected abstract class WesternImpl extends Impl {
 
-        private final short easterMonday[] = {
-                     98,  90, 103,  95, 114, 106,  91, 111, 102,   // 1901-1909
-                87, 107,  99,  83, 103,  95, 115,  99,  91, 111,   // 1910-1919
-                96,  87, 107,  92, 112, 103,  95, 108, 100,  91,   // 1920-1929
-               111,  96,  88, 107,  92, 112, 104,  88, 108, 100,   // 1930-1939
-                85, 104,  96, 116, 101,  92, 112,  97,  89, 108,   // 1940-1949
-               100,  85, 105,  96, 109, 101,  93, 112,  97,  89,   // 1950-1959
-               109,  93, 113, 105,  90, 109, 101,  86, 106,  97,   // 1960-1969
-                89, 102,  94, 113, 105,  90, 110, 101,  86, 106,   // 1970-1979
-                98, 110, 102,  94, 114,  98,  90, 110,  95,  86,   // 1980-1989
-               106,  91, 111, 102,  94, 107,  99,  90, 103,  95,   // 1990-1999
-               115, 106,  91, 111, 103,  87, 107,  99,  84, 103,   // 2000-2009
-                95, 115, 100,  91, 111,  96,  88, 107,  92, 112,   // 2010-2019
-               104,  95, 108, 100,  92, 111,  96,  88, 108,  92,   // 2020-2029
-               112, 104,  89, 108, 100,  85, 105,  96, 116, 101,   // 2030-2039
-                93, 112,  97,  89, 109, 100,  85, 105,  97, 109,   // 2040-2049
-               101,  93, 113,  97,  89, 109,  94, 113, 105,  90,   // 2050-2059
-               110, 101,  86, 106,  98,  89, 102,  94, 114, 105,   // 2060-2069
-                90, 110, 102,  86, 106,  98, 111, 102,  94, 114,   // 2070-2079
-                99,  90, 110,  95,  87, 106,  91, 111, 103,  94,   // 2080-2089
-               107,  99,  91, 103,  95, 115, 107,  91, 111, 103,   // 2090-2099
-                88, 108, 100,  85, 105,  96, 109, 101,  93, 112,   // 2100-2109
-                97,  89, 109,  93, 113, 105,  90, 109, 101,  86,   // 2110-2119
-               106,  97,  89, 102,  94, 113, 105,  90, 110, 101,   // 2120-2129
-                86, 106,  98, 110, 102,  94, 114,  98,  90, 110,   // 2130-2139
-                95,  86, 106,  91, 111, 102,  94, 107,  99,  90,   // 2140-2149
-               103,  95, 115, 106,  91, 111, 103,  87, 107,  99,   // 2150-2159
-                84, 103,  95, 115, 100,  91, 111,  96,  88, 107,   // 2160-2169
-                92, 112, 104,  95, 108, 100,  92, 111,  96,  88,   // 2170-2179
-               108,  92, 112, 104,  89, 108, 100,  85, 105,  96,   // 2180-2189
-               116, 101,  93, 112,  97,  89, 109, 100,  85, 105    // 2190-2199
-        };
-
         @Override
         public boolean isWeekend(final Weekday w) {
             return w == Weekday.Saturday || w == Weekday.Sunday;
@@ -437,46 +1067,13 @@ public class Calendar {
          * @return
          */
         protected int easterMonday(final int y) {
-            return easterMonday[y-1901];
+            return westernEasterMonday[y-1901];
         }
     }
 
 
     protected abstract class OrthodoxImpl extends Impl {
 
-        private final short easterMonday[] = {
-                     105, 118, 110, 102, 121, 106, 126, 118, 102,   // 1901-1909
-                122, 114,  99, 118, 110,  95, 115, 106, 126, 111,   // 1910-1919
-                103, 122, 107,  99, 119, 110, 123, 115, 107, 126,   // 1920-1929
-                111, 103, 123, 107,  99, 119, 104, 123, 115, 100,   // 1930-1939
-                120, 111,  96, 116, 108, 127, 112, 104, 124, 115,   // 1940-1949
-                100, 120, 112,  96, 116, 108, 128, 112, 104, 124,   // 1950-1959
-                109, 100, 120, 105, 125, 116, 101, 121, 113, 104,   // 1960-1969
-                117, 109, 101, 120, 105, 125, 117, 101, 121, 113,   // 1970-1979
-                 98, 117, 109, 129, 114, 105, 125, 110, 102, 121,   // 1980-1989
-                106,  98, 118, 109, 122, 114, 106, 118, 110, 102,   // 1990-1999
-                122, 106, 126, 118, 103, 122, 114,  99, 119, 110,   // 2000-2009
-                 95, 115, 107, 126, 111, 103, 123, 107,  99, 119,   // 2010-2019
-                111, 123, 115, 107, 127, 111, 103, 123, 108,  99,   // 2020-2029
-                119, 104, 124, 115, 100, 120, 112,  96, 116, 108,   // 2030-2039
-                128, 112, 104, 124, 116, 100, 120, 112,  97, 116,   // 2040-2049
-                108, 128, 113, 104, 124, 109, 101, 120, 105, 125,   // 2050-2059
-                117, 101, 121, 113, 105, 117, 109, 101, 121, 105,   // 2060-2069
-                125, 110, 102, 121, 113,  98, 118, 109, 129, 114,   // 2070-2079
-                106, 125, 110, 102, 122, 106,  98, 118, 110, 122,   // 2080-2089
-                114,  99, 119, 110, 102, 115, 107, 126, 118, 103,   // 2090-2099
-                123, 115, 100, 120, 112,  96, 116, 108, 128, 112,   // 2100-2109
-                104, 124, 109, 100, 120, 105, 125, 116, 108, 121,   // 2110-2119
-                113, 104, 124, 109, 101, 120, 105, 125, 117, 101,   // 2120-2129
-                121, 113,  98, 117, 109, 129, 114, 105, 125, 110,   // 2130-2139
-                102, 121, 113,  98, 118, 109, 129, 114, 106, 125,   // 2140-2149
-                110, 102, 122, 106, 126, 118, 103, 122, 114,  99,   // 2150-2159
-                119, 110, 102, 115, 107, 126, 111, 103, 123, 114,   // 2160-2169
-                 99, 119, 111, 130, 115, 107, 127, 111, 103, 123,   // 2170-2179
-                108,  99, 119, 104, 124, 115, 100, 120, 112, 103,   // 2180-2189
-                116, 108, 128, 119, 104, 124, 116, 100, 120, 112    // 2190-2199
-        };
-
         @Override
         public boolean isWeekend(final Weekday w) {
             return w == Weekday.Saturday || w == Weekday.Sunday;
@@ -487,7 +1084,7 @@ public class Calendar {
          * first day of the year
          */
         protected final int easterMonday(final int year) {
-            return easterMonday[year-1901];
+            return orthodoxEasterMonday[year-1901];
         }
 
     }
@@ -0,0 +1,180 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.mafinlib.MFL;
+import org.mafinlib.time.calendars.UnitedStates;
+
+/**
+ * Registry of shared calendars
+ * <p>
+ * Each <code>new UnitedStates(market)</code> has its own implementation, holiday overrides and
+ * bitmap. The registry hands out one shared instance per calendar name instead, so that the
+ * bitmap and the business day counts of a calendar are built once per JVM.
+ * <p>
+ * Calendars are compiled when they are registered and built on their first query, or eagerly
+ * by {@link #warmUp()} and {@link #warmUpInBackground()}. Setting the system property
+ * <code>{@value #WARM_UP_PROPERTY}</code> to <code>true</code> starts the warm-up in the
+ * background as soon as the registry is first used; services which saved the registry with
+ * {@link #save(Path)} can {@link #load(Path)} it at startup instead.
+ * <p>
+ * Holidays added to or removed from a shared calendar are seen by all its users.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class CalendarRegistry {
+
+    public static final String WARM_UP_PROPERTY = "mafinlib.calendars.warmup";
+
+    private final ConcurrentMap<String, Calendar> calendars;
+
+
+    //Begin thread safe Singleton pattern implementation
+    private static volatile CalendarRegistry instance = null;
+
+    private CalendarRegistry() {
+        this.calendars = new ConcurrentHashMap<String, Calendar>();
+        for (final UnitedStates.Market market : UnitedStates.Market.values()) {
+            register(new UnitedStates(market));
+        }
+    }
+
+    public static CalendarRegistry instance() {
+        if (instance == null) {
+            synchronized (CalendarRegistry.class) {
+                if (instance == null) {
+                    instance = new CalendarRegistry();
+                    if (Boolean.getBoolean(WARM_UP_PROPERTY)) {
+                        instance.warmUpInBackground();
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+    //End thread safe Singleton pattern implementation
+
+
+    //
+    // public methods
+    //
+
+    /**
+     * Registers the calendar unless one with the same name already is.
+     *
+     * @param c
+     * @return the shared calendar with the name of c, which is c itself if it was not registered yet
+     */
+    public Calendar register(final Calendar c) {
+        MFL.require(c != null && !c.empty(), "null calendar");
+        final Calendar shared = calendars.putIfAbsent(c.name(), c);
+        if (shared != null)
+            return shared;
+        c.compile();
+        return c;
+    }
+
+    /**
+     * Shortcut for {@link #register(Calendar)}: the usual way to get a shared calendar is
+     * <code>CalendarRegistry.instance().calendar(new UnitedStates(Market.NYSE))</code>, where
+     * the argument is discarded whenever the calendar is already known.
+     *
+     * @param c
+     * @return the shared calendar with the name of c
+     */
+    public Calendar calendar(final Calendar c) {
+        MFL.require(c != null && !c.empty(), "null calendar");
+        final Calendar shared = calendars.get(c.name());
+        return shared != null ? shared : register(c);
+    }
+
+    /**
+     * @param name
+     * @return the shared calendar with the given name
+     */
+    public Calendar calendar(final String name) {
+        final Calendar shared = calendars.get(name);
+        MFL.require(shared != null, "unknown calendar (" + name + ")");
+        return shared;
+    }
+
+    public boolean contains(final String name) {
+        return calendars.containsKey(name);
+    }
+
+    /**
+     * @return the names of the registered calendars, in alphabetical order
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(new TreeSet<String>(calendars.keySet()));
+    }
+
+    /**
+     * Saves the bitmaps of all the registered calendars.
+     *
+     * @see CalendarStore#save(Path, java.util.Collection)
+     */
+    public void save(final Path path) throws IOException {
+        CalendarStore.save(path, calendars.values());
+    }
+
+    /**
+     * Builds the bitmaps of all the registered calendars from a file written by {@link #save(Path)},
+     * compiling from the rules the calendars which are not found there or whose rules changed.
+     *
+     * @return the number of calendars loaded from the file
+     * @see CalendarStore#load(Path, java.util.Collection)
+     */
+    public int load(final Path path) throws IOException {
+        return CalendarStore.load(path, calendars.values());
+    }
+
+    /**
+     * Builds the bitmaps of all the registered calendars in the calling thread.
+     */
+    public void warmUp() {
+        for (final Calendar c : calendars.values()) {
+            c.warmUp();
+        }
+    }
+
+    /**
+     * Builds the bitmaps of all the registered calendars in a background daemon thread.
+     * Queries issued in the meantime are correct, at worst they wait for the bitmap being built.
+     *
+     * @return the completion of the warm-up
+     */
+    public Future<?> warmUpInBackground() {
+        final FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        }, null);
+        final Thread thread = new Thread(task, "mafinlib-calendar-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+}
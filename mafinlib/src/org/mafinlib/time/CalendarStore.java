@@ -0,0 +1,254 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mafinlib.MFL;
+
+/**
+ * Binary store of compiled calendars
+ * <p>
+ * Saves the bitmaps of compiled calendars, i.e. the holiday rules plus the holidays added or
+ * removed by the user, so that a service can memory-map them at startup instead of evaluating
+ * the rules of every calendar for all the dates of the {@link BusinessDayBitmap} range.
+ * <p>
+ * Each record carries the {@link Calendar.Impl#rulesVersion() rules version} of its calendar:
+ * records which do not match the calendar being loaded, as well as calendars without a record
+ * or files written with a different layout, fall back to compiling the calendar.
+ * <p>
+ * The layout, big-endian, is
+ * <pre>
+ * int magic, int format version, long first serial, int word count, int record count
+ * for each record:
+ *     int name length, byte[] UTF-8 name, long rules version, long dependency version,
+ *     int added count, long[] added serials, int removed count, long[] removed serials,
+ *     long[word count] business day words
+ * </pre>
+ *
+ * @see Calendar#compile()
+ * @see CalendarRegistry
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class CalendarStore {
+
+    private static final int MAGIC = 0x4D464C43; // "MFLC"
+    private static final int FORMAT_VERSION = 1;
+
+    // utility class
+    private CalendarStore() {
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Compiles the given calendars and saves their bitmaps. The file is written aside and
+     * then moved in place, so that readers never map a partially written file.
+     *
+     * @param path
+     * @param calendars
+     * @throws IOException
+     */
+    public static void save(final Path path, final Collection<? extends Calendar> calendars) throws IOException {
+        MFL.require(path != null, "null path");
+        MFL.require(calendars != null, "null calendars");
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(BusinessDayBitmap.firstSerial());
+                out.writeInt(BusinessDayBitmap.wordCount());
+                out.writeInt(calendars.size());
+                for (final Calendar c : calendars) {
+                    MFL.require(c != null && !c.empty(), "null calendar");
+                    write(out, c.record());
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Compiles the given calendars from the saved bitmaps where possible, and from their
+     * rules otherwise. A missing file compiles all of them from their rules.
+     *
+     * @param path
+     * @param calendars
+     * @return the number of calendars loaded from the file
+     * @throws IOException
+     */
+    public static int load(final Path path, final Collection<? extends Calendar> calendars) throws IOException {
+        MFL.require(path != null, "null path");
+        MFL.require(calendars != null, "null calendars");
+        final Map<String, Calendar> byName = new HashMap<String, Calendar>();
+        for (final Calendar c : calendars) {
+            MFL.require(c != null && !c.empty(), "null calendar");
+            byName.put(c.name(), c);
+        }
+
+        int loaded = 0;
+        if (Files.exists(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                loaded = read(buffer, byName);
+            }
+        }
+
+        // whatever was not loaded is compiled from the rules
+        for (final Calendar c : byName.values()) {
+            c.warmUp();
+        }
+        return loaded;
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static void write(final DataOutputStream out, final Record r) throws IOException {
+        final byte[] name = r.name.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(name.length);
+        out.write(name);
+        out.writeLong(r.rulesVersion);
+        out.writeLong(r.dependencyVersion);
+        writeSerials(out, r.added);
+        writeSerials(out, r.removed);
+        for (final long word : r.bits) {
+            out.writeLong(word);
+        }
+    }
+
+    private static void writeSerials(final DataOutputStream out, final long[] serials) throws IOException {
+        out.writeInt(serials.length);
+        for (final long s : serials) {
+            out.writeLong(s);
+        }
+    }
+
+    /**
+     * Installs the matching records and removes the corresponding calendars from the map.
+     * A file with a different layout, or a truncated one, is ignored from the first
+     * record which cannot be read.
+     */
+    private static int read(final ByteBuffer buffer, final Map<String, Calendar> calendars) {
+        int loaded = 0;
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != BusinessDayBitmap.firstSerial()
+                    || buffer.getInt() != BusinessDayBitmap.wordCount())
+                return 0;
+            final int records = buffer.getInt();
+            for (int i = 0; i < records; i++) {
+                final byte[] bytes = new byte[length(buffer, 1)];
+                buffer.get(bytes);
+                final String name = new String(bytes, StandardCharsets.UTF_8);
+                final long rulesVersion = buffer.getLong();
+                final long dependencyVersion = buffer.getLong();
+                final long[] added = readSerials(buffer);
+                final long[] removed = readSerials(buffer);
+
+                final Calendar c = calendars.get(name);
+                if (c == null || c.rulesVersion() != rulesVersion) {
+                    // skip the words
+                    buffer.position(buffer.position() + 8 * BusinessDayBitmap.wordCount());
+                    continue;
+                }
+                final long[] bits = new long[BusinessDayBitmap.wordCount()];
+                buffer.asLongBuffer().get(bits);
+                buffer.position(buffer.position() + 8 * bits.length);
+                if (c.install(new Record(name, rulesVersion, dependencyVersion, bits, added, removed))) {
+                    calendars.remove(name);
+                    loaded++;
+                }
+            }
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            // truncated or corrupted file, the remaining calendars are compiled
+        }
+        return loaded;
+    }
+
+    private static long[] readSerials(final ByteBuffer buffer) {
+        final long[] serials = new long[length(buffer, 8)];
+        for (int i = 0; i < serials.length; i++) {
+            serials[i] = buffer.getLong();
+            if (!BusinessDayBitmap.covers(serials[i]))
+                throw new IllegalArgumentException("serial number (" + serials[i] + ") out of range");
+        }
+        return serials;
+    }
+
+    /**
+     * Reads a length, checking it against the bytes left so that a corrupted file
+     * never leads to a huge allocation
+     */
+    private static int length(final ByteBuffer buffer, final int elementSize) {
+        final int length = buffer.getInt();
+        if (length < 0 || (long) length * elementSize > buffer.remaining())
+            throw new BufferUnderflowException();
+        return length;
+    }
+
+
+    //
+    // package private inner classes
+    //
+
+    /**
+     * Persisted state of a compiled calendar
+     */
+    static final class Record {
+
+        final String name;
+        final long rulesVersion;
+        final long dependencyVersion;
+        final long[] bits;
+        final long[] added;
+        final long[] removed;
+
+        Record(final String name, final long rulesVersion, final long dependencyVersion,
+                final long[] bits, final long[] added, final long[] removed) {
+            this.name = name;
+            this.rulesVersion = rulesVersion;
+            this.dependencyVersion = dependencyVersion;
+            this.bits = bits;
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+/**
+ * Date-generation rule
+ * <p>
+ * These conventions specify the rule used to generate dates in a {@link Schedule}.
+ */
+public enum DateGenerationRule {
+	/**
+	 * Backward from termination date to effective date.
+	 */
+	Backward,
+
+	/**
+	 * Forward from effective date to termination date.
+	 */
+	Forward,
+
+	/**
+	 * No intermediate dates between effective date and termination date.
+	 */
+	Zero;
+}
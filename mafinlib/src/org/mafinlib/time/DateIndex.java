@@ -0,0 +1,323 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.mafinlib.MFL;
+
+/**
+ * Immutable, sorted index of dates backed by a <code>long[]</code> of serial numbers.
+ * <p>
+ * Lookups compare primitive serial numbers instead of calling
+ * {@link Date#compareTo(Date)} on the elements of a <code>List&lt;Date&gt;</code>.
+ * Besides single lookups, the index answers a whole sorted array of queries in one
+ * merge walk: the search for each query restarts from the position of the previous one
+ * and gallops forward, so that mapping the cashflow dates of a leg onto curve pillars
+ * or fixing dates costs a single pass over both arrays.
+ * <p>
+ * The semantics of {@link #lowerBound(long)} and {@link #upperBound(long)} are the ones
+ * of <code>std::lower_bound</code> and <code>std::upper_bound</code>, as in
+ * {@link Date#lowerBound(List, Date)} and {@link Date#upperBound(List, Date)}.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class DateIndex {
+
+    private final long[] serials;
+
+    /**
+     * Builds the index of the given serial numbers. The array is copied and sorted;
+     * duplicates are kept.
+     *
+     * @param serials
+     */
+    public DateIndex(final long[] serials) {
+        MFL.require(serials != null, "null serial numbers");
+        this.serials = serials.clone();
+        if (!isSorted(this.serials, this.serials.length))
+            Arrays.sort(this.serials);
+    }
+
+    /**
+     * Builds the index of the given dates.
+     *
+     * @param dates
+     */
+    public DateIndex(final List<Date> dates) {
+        MFL.require(dates != null, "null dates");
+        this.serials = new long[dates.size()];
+        int i = 0;
+        for (final Date d : dates)
+            this.serials[i++] = d.serialNumber();
+        if (!isSorted(this.serials, this.serials.length))
+            Arrays.sort(this.serials);
+    }
+
+    /**
+     * Builds the index of the given dates.
+     *
+     * @param dates
+     */
+    public DateIndex(final Date... dates) {
+        this(Arrays.asList(dates));
+    }
+
+
+    //
+    // public methods :: inspectors
+    //
+
+    /**
+     * @return the number of indexed dates
+     */
+    public int size() {
+        return serials.length;
+    }
+
+    public boolean empty() {
+        return serials.length == 0;
+    }
+
+    /**
+     * @param i
+     * @return the serial number of the i-th date
+     */
+    public long serial(final int i) {
+        return serials[i];
+    }
+
+    /**
+     * @param i
+     * @return the i-th date
+     */
+    public Date date(final int i) {
+        return Date.of(serials[i]);
+    }
+
+    /**
+     * @return a copy of the sorted serial numbers
+     */
+    public long[] serials() {
+        return serials.clone();
+    }
+
+    public Date front() {
+        MFL.require(serials.length > 0, "empty date index");
+        return Date.of(serials[0]);
+    }
+
+    public Date back() {
+        MFL.require(serials.length > 0, "empty date index");
+        return Date.of(serials[serials.length - 1]);
+    }
+
+
+    //
+    // public methods :: single lookups
+    //
+
+    /**
+     * @param serial
+     * @return the index of the first date which is greater than or equal to the given serial number
+     */
+    public int lowerBound(final long serial) {
+        return lowerBound(serials, 0, serials.length, serial);
+    }
+
+    /**
+     * @param date
+     * @return the index of the first date which is greater than or equal to the given date
+     */
+    public int lowerBound(final Date date) {
+        return lowerBound(serials, 0, serials.length, date.serialNumber());
+    }
+
+    /**
+     * @param serial
+     * @return the index of the first date which is strictly greater than the given serial number
+     */
+    public int upperBound(final long serial) {
+        return upperBound(serials, 0, serials.length, serial);
+    }
+
+    /**
+     * @param date
+     * @return the index of the first date which is strictly greater than the given date
+     */
+    public int upperBound(final Date date) {
+        return upperBound(serials, 0, serials.length, date.serialNumber());
+    }
+
+    /**
+     * @param serial
+     * @return the index of the first occurrence of the given serial number, or -1 if it is not indexed
+     */
+    public int indexOf(final long serial) {
+        final int i = lowerBound(serials, 0, serials.length, serial);
+        return i < serials.length && serials[i] == serial ? i : -1;
+    }
+
+    /**
+     * @param date
+     * @return the index of the first occurrence of the given date, or -1 if it is not indexed
+     */
+    public int indexOf(final Date date) {
+        return indexOf(date.serialNumber());
+    }
+
+    public boolean contains(final long serial) {
+        return indexOf(serial) >= 0;
+    }
+
+    public boolean contains(final Date date) {
+        return indexOf(date.serialNumber()) >= 0;
+    }
+
+
+    //
+    // public methods :: batch lookups
+    //
+
+    /**
+     * Computes {@link #lowerBound(long)} for each of the given queries in a single merge walk.
+     *
+     * @param queries serial numbers sorted in ascending order
+     * @param result receives the lower bound of each query, it must be at least as long as the queries
+     * @return result
+     */
+    public int[] lowerBounds(final long[] queries, final int[] result) {
+        return bounds(queries, result, false);
+    }
+
+    /**
+     * @param queries serial numbers sorted in ascending order
+     * @return a new array with the lower bound of each query
+     * @see #lowerBounds(long[], int[])
+     */
+    public int[] lowerBounds(final long[] queries) {
+        return bounds(queries, new int[queries.length], false);
+    }
+
+    /**
+     * Computes {@link #upperBound(long)} for each of the given queries in a single merge walk.
+     *
+     * @param queries serial numbers sorted in ascending order
+     * @param result receives the upper bound of each query, it must be at least as long as the queries
+     * @return result
+     */
+    public int[] upperBounds(final long[] queries, final int[] result) {
+        return bounds(queries, result, true);
+    }
+
+    /**
+     * @param queries serial numbers sorted in ascending order
+     * @return a new array with the upper bound of each query
+     * @see #upperBounds(long[], int[])
+     */
+    public int[] upperBounds(final long[] queries) {
+        return bounds(queries, new int[queries.length], true);
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * Equivalent to <code>std::lower_bound</code> on a sorted range of serial numbers.
+     *
+     * @param serials sorted in ascending order
+     * @param from first index of the range
+     * @param to index past the end of the range
+     * @param serial value to be searched
+     * @return index of the first element in [from, to) which is &gt;= serial, or <code>to</code>
+     */
+    public static int lowerBound(final long[] serials, int from, final int to, final long serial) {
+        int len = to - from;
+        while (len > 0) {
+            final int half = len >>> 1;
+            final int middle = from + half;
+            if (serials[middle] < serial) {
+                from = middle + 1;
+                len -= half + 1;
+            } else {
+                len = half;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Equivalent to <code>std::upper_bound</code> on a sorted range of serial numbers.
+     *
+     * @param serials sorted in ascending order
+     * @param from first index of the range
+     * @param to index past the end of the range
+     * @param serial value to be searched
+     * @return index of the first element in [from, to) which is &gt; serial, or <code>to</code>
+     */
+    public static int upperBound(final long[] serials, int from, final int to, final long serial) {
+        int len = to - from;
+        while (len > 0) {
+            final int half = len >>> 1;
+            final int middle = from + half;
+            if (serials[middle] <= serial) {
+                from = middle + 1;
+                len -= half + 1;
+            } else {
+                len = half;
+            }
+        }
+        return from;
+    }
+
+
+    //
+    // private methods
+    //
+
+    private int[] bounds(final long[] queries, final int[] result, final boolean upper) {
+        MFL.require(result.length >= queries.length, "result array shorter than the queries");
+        final long[] s = serials;
+        final int n = s.length;
+        int pos = 0;
+        long previous = Long.MIN_VALUE;
+        for (int k = 0; k < queries.length; k++) {
+            final long q = queries[k];
+            MFL.require(q >= previous, "queries must be sorted in ascending order");
+            previous = q;
+            // gallop from the previous position, then search the bracketed range
+            int step = 1;
+            int hi = pos;
+            while (hi < n && (upper ? s[hi] <= q : s[hi] < q)) {
+                pos = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            final int to = Math.min(hi, n);
+            pos = upper ? upperBound(s, pos, to, q) : lowerBound(s, pos, to, q);
+            result[k] = pos;
+        }
+        return result;
+    }
+
+    private static boolean isSorted(final long[] a, final int n) {
+        for (int i = 1; i < n; i++)
+            if (a[i - 1] > a[i])
+                return false;
+        return true;
+    }
+
+}
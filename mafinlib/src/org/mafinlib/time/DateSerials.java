@@ -0,0 +1,527 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ * 
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ * 
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ * 
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ * 
+ */
+package org.mafinlib.time;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+
+/**
+ * Static, allocation-free date algebra over serial numbers.
+ * <p>
+ * Every method of this class works on the same serial numbers used by {@link Date}
+ * (Applix/Excel convention, Jan 1st 1901 is 367) and on primitive day, month and year
+ * values. Weekdays are encoded as {@link Weekday#value()} (Sunday is 1, Saturday is 7)
+ * and months as {@link Month#value()}. Hot loops can therefore walk schedules and test
+ * calendar rules without creating a single {@link Date}.
+ * <p>
+ * The inspectors and the algebra of {@link Date} delegate to this class.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class DateSerials {
+
+    private static final int monthLength[] = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private static final int monthLeapLength[] = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private static final int monthOffset[] = {
+        0, 31, 59, 90, 120, 151,        // Jan - Jun
+        181, 212, 243, 273, 304, 334,   // Jun - Dec
+        365 // used in dayOfMonth to bracket day
+    };
+
+    private static final int monthLeapOffset[] = {
+        0, 31, 60, 91, 121, 152,        // Jan - Jun
+        182, 213, 244, 274, 305, 335,   // Jun - Dec
+        366 // used in dayOfMonth to bracket day
+    };
+
+    // the list of all December 31st in the preceding year
+    // e.g. for 1901 yearOffset[1] is 366, that is, December 31 1900
+    private static final int yearOffset[] = {
+        // 1900-1909
+            0,  366,  731, 1096, 1461, 1827, 2192, 2557, 2922, 3288,
+        // 1910-1919
+         3653, 4018, 4383, 4749, 5114, 5479, 5844, 6210, 6575, 6940,
+        // 1920-1929
+         7305, 7671, 8036, 8401, 8766, 9132, 9497, 9862,10227,10593,
+        // 1930-1939
+        10958,11323,11688,12054,12419,12784,13149,13515,13880,14245,
+        // 1940-1949
+        14610,14976,15341,15706,16071,16437,16802,17167,17532,17898,
+        // 1950-1959
+        18263,18628,18993,19359,19724,20089,20454,20820,21185,21550,
+        // 1960-1969
+        21915,22281,22646,23011,23376,23742,24107,24472,24837,25203,
+        // 1970-1979
+        25568,25933,26298,26664,27029,27394,27759,28125,28490,28855,
+        // 1980-1989
+        29220,29586,29951,30316,30681,31047,31412,31777,32142,32508,
+        // 1990-1999
+        32873,33238,33603,33969,34334,34699,35064,35430,35795,36160,
+        // 2000-2009
+        36525,36891,37256,37621,37986,38352,38717,39082,39447,39813,
+        // 2010-2019
+        40178,40543,40908,41274,41639,42004,42369,42735,43100,43465,
+        // 2020-2029
+        43830,44196,44561,44926,45291,45657,46022,46387,46752,47118,
+        // 2030-2039
+        47483,47848,48213,48579,48944,49309,49674,50040,50405,50770,
+        // 2040-2049
+        51135,51501,51866,52231,52596,52962,53327,53692,54057,54423,
+        // 2050-2059
+        54788,55153,55518,55884,56249,56614,56979,57345,57710,58075,
+        // 2060-2069
+        58440,58806,59171,59536,59901,60267,60632,60997,61362,61728,
+        // 2070-2079
+        62093,62458,62823,63189,63554,63919,64284,64650,65015,65380,
+        // 2080-2089
+        65745,66111,66476,66841,67206,67572,67937,68302,68667,69033,
+        // 2090-2099
+        69398,69763,70128,70494,70859,71224,71589,71955,72320,72685,
+        // 2100-2109
+        73050,73415,73780,74145,74510,74876,75241,75606,75971,76337,
+        // 2110-2119
+        76702,77067,77432,77798,78163,78528,78893,79259,79624,79989,
+        // 2120-2129
+        80354,80720,81085,81450,81815,82181,82546,82911,83276,83642,
+        // 2130-2139
+        84007,84372,84737,85103,85468,85833,86198,86564,86929,87294,
+        // 2140-2149
+        87659,88025,88390,88755,89120,89486,89851,90216,90581,90947,
+        // 2150-2159
+        91312,91677,92042,92408,92773,93138,93503,93869,94234,94599,
+        // 2160-2169
+        94964,95330,95695,96060,96425,96791,97156,97521,97886,98252,
+        // 2170-2179
+        98617,98982,99347,99713,100078,100443,100808,101174,101539,101904,
+        // 2180-2189
+        102269,102635,103000,103365,103730,104096,104461,104826,105191,105557,
+        // 2190-2199
+        105922,106287,106652,107018,107383,107748,108113,108479,108844,109209,
+        // 2200
+        109574
+    };
+
+    private static final boolean yearIsLeap[] = {
+        // 1900 is leap in agreement with Excel's bug
+        // 1900 is out of valid date range anyway
+        // 1900-1909
+         true,false,false,false, true,false,false,false, true,false,
+        // 1910-1919
+        false,false, true,false,false,false, true,false,false,false,
+        // 1920-1929
+         true,false,false,false, true,false,false,false, true,false,
+        // 1930-1939
+        false,false, true,false,false,false, true,false,false,false,
+        // 1940-1949
+         true,false,false,false, true,false,false,false, true,false,
+        // 1950-1959
+        false,false, true,false,false,false, true,false,false,false,
+        // 1960-1969
+         true,false,false,false, true,false,false,false, true,false,
+        // 1970-1979
+        false,false, true,false,false,false, true,false,false,false,
+        // 1980-1989
+         true,false,false,false, true,false,false,false, true,false,
+        // 1990-1999
+        false,false, true,false,false,false, true,false,false,false,
+        // 2000-2009
+         true,false,false,false, true,false,false,false, true,false,
+        // 2010-2019
+        false,false, true,false,false,false, true,false,false,false,
+        // 2020-2029
+         true,false,false,false, true,false,false,false, true,false,
+        // 2030-2039
+        false,false, true,false,false,false, true,false,false,false,
+        // 2040-2049
+         true,false,false,false, true,false,false,false, true,false,
+        // 2050-2059
+        false,false, true,false,false,false, true,false,false,false,
+        // 2060-2069
+         true,false,false,false, true,false,false,false, true,false,
+        // 2070-2079
+        false,false, true,false,false,false, true,false,false,false,
+        // 2080-2089
+         true,false,false,false, true,false,false,false, true,false,
+        // 2090-2099
+        false,false, true,false,false,false, true,false,false,false,
+        // 2100-2109
+        false,false,false,false, true,false,false,false, true,false,
+        // 2110-2119
+        false,false, true,false,false,false, true,false,false,false,
+        // 2120-2129
+         true,false,false,false, true,false,false,false, true,false,
+        // 2130-2139
+        false,false, true,false,false,false, true,false,false,false,
+        // 2140-2149
+         true,false,false,false, true,false,false,false, true,false,
+        // 2150-2159
+        false,false, true,false,false,false, true,false,false,false,
+        // 2160-2169
+         true,false,false,false, true,false,false,false, true,false,
+        // 2170-2179
+        false,false, true,false,false,false, true,false,false,false,
+        // 2180-2189
+         true,false,false,false, true,false,false,false, true,false,
+        // 2190-2199
+        false,false, true,false,false,false, true,false,false,false,
+        // 2200
+        false
+    };
+
+    // packed fields of every date in [minimumSerialNumber(), maximumSerialNumber()],
+    // indexed by serial - minimumSerialNumber():
+    // bits 0-4 day of month, bits 5-8 month, bits 9-17 day of year, bits 18-26 year - 1900
+    private static final int DAY_MASK = 0x1F;
+    private static final int MONTH_SHIFT = 5;
+    private static final int MONTH_MASK = 0xF;
+    private static final int DAY_OF_YEAR_SHIFT = 9;
+    private static final int DAY_OF_YEAR_MASK = 0x1FF;
+    private static final int YEAR_SHIFT = 18;
+
+    private static final int MIN_SERIAL = 367;
+    private static final int MAX_SERIAL = 109574;
+
+    private static final int fields[] = buildFields();
+
+    private DateSerials() {
+        // only static methods
+    }
+
+
+    //
+    // public static methods :: range
+    //
+
+    /**
+     * @return the serial number of the earliest allowed date, Jan 1st, 1901
+     */
+    public static long minimumSerialNumber() {
+        return MIN_SERIAL;
+    }
+
+    /**
+     * @return the serial number of the latest allowed date, Dec 31st, 2199
+     */
+    public static long maximumSerialNumber() {
+        return MAX_SERIAL;
+    }
+
+
+    //
+    // public static methods :: inspectors
+    //
+
+    /**
+     * @param serial is the serial number of a date
+     * @return the weekday of the given date, from 1 (Sunday) till 7 (Saturday)
+     */
+    public static int weekday(final long serial) {
+        final int w = (int) (serial % 7);
+        return w == 0 ? 7 : w;
+    }
+
+    /**
+     * @param serial is the serial number of a date
+     * @return the day of the month of the given date
+     */
+    public static int dayOfMonth(final long serial) {
+        if (serial >= MIN_SERIAL && serial <= MAX_SERIAL)
+            return fields[(int) serial - MIN_SERIAL] & DAY_MASK;
+        final int y = computeYear(serial);
+        return (int) (serial - yearOffset(y)) - monthOffset(computeMonth(serial), isLeap(y));
+    }
+
+    /**
+     * One-based (Jan 1st = 1)
+     *
+     * @param serial is the serial number of a date
+     * @return the day of the year of the given date
+     */
+    public static int dayOfYear(final long serial) {
+        if (serial >= MIN_SERIAL && serial <= MAX_SERIAL)
+            return (fields[(int) serial - MIN_SERIAL] >>> DAY_OF_YEAR_SHIFT) & DAY_OF_YEAR_MASK;
+        return (int) (serial - yearOffset(computeYear(serial)));
+    }
+
+    /**
+     * @param serial is the serial number of a date
+     * @return the month of the given date, from 1 (January) till 12 (December)
+     */
+    public static int month(final long serial) {
+        if (serial >= MIN_SERIAL && serial <= MAX_SERIAL)
+            return (fields[(int) serial - MIN_SERIAL] >>> MONTH_SHIFT) & MONTH_MASK;
+        return computeMonth(serial);
+    }
+
+    /**
+     * @param serial is the serial number of a date
+     * @return the year of the given date
+     */
+    public static int year(final long serial) {
+        if (serial >= MIN_SERIAL && serial <= MAX_SERIAL)
+            return (fields[(int) serial - MIN_SERIAL] >>> YEAR_SHIFT) + 1900;
+        return computeYear(serial);
+    }
+
+
+    //
+    // public static methods :: algebra
+    //
+
+    /**
+     * Advances a serial number by the given number of units.
+     * <p>
+     * Months and years are added keeping the day of the month, which is moved to
+     * the last day of the resulting month when the latter is shorter.
+     *
+     * @param serial is the serial number of a date
+     * @param n is the number of units
+     * @param units are the time units
+     * @return the serial number of the resulting date
+     */
+    public static long add(final long serial, final int n, final TimeUnit units) {
+        switch (units) {
+        case Days:
+            return (n + serial);
+        case Weeks:
+            return (7 * n + serial);
+        case Months: {
+            int d = dayOfMonth(serial);
+            int m = month(serial) + n;
+            int y = year(serial);
+            while (m > 12) {
+                m -= 12;
+                y += 1;
+            }
+            while (m < 1) {
+                m += 12;
+                y -= 1;
+            }
+
+            MFL.ensure(y > 1900 && y <= 2199 , "year out of bounds. It must be in [1901,2199]"); // TODO: message
+            final int length = monthLength(m, isLeap(y));
+            if (d > length) {
+                d = length;
+            }
+            return fromDMY(d, m, y);
+        }
+        case Years: {
+            int d = dayOfMonth(serial);
+            final int m = month(serial);
+            final int y = year(serial) + n;
+
+            MFL.ensure(y > 1900 && y <= 2199 , "year out of bounds. It must be in [1901,2199]"); // TODO: message
+            if (d == 29 && m == 2 && !isLeap(y)) {
+                d = 28;
+            }
+            return fromDMY(d, m, y);
+        }
+        default:
+            throw new LibraryException("undefined time units"); // TODO: message
+        }
+    }
+
+    /**
+     * Advances a serial number by the given period.
+     *
+     * @param serial is the serial number of a date
+     * @param period is the period to be added
+     * @return the serial number of the resulting date
+     */
+    public static long add(final long serial, final Period period) {
+        return add(serial, period.length(), period.units());
+    }
+
+    /**
+     * Advances a serial number by the given tenor.
+     *
+     * @param serial is the serial number of a date
+     * @param tenor is the tenor to be added
+     * @return the serial number of the resulting date
+     */
+    public static long add(final long serial, final Tenor tenor) {
+        return add(serial, tenor.length(), tenor.units());
+    }
+
+    /**
+     * Whether the given year is a leap one
+     *
+     * @param year
+     * @return
+     */
+    public static boolean isLeap(final int year) {
+        return yearIsLeap[year - 1900];
+    }
+
+    /**
+     * Last day of the month to which the given date belongs
+     *
+     * @param serial is the serial number of a date
+     * @return the serial number of the last day of the month
+     */
+    public static long endOfMonth(final long serial) {
+        final int y = year(serial);
+        final int m = month(serial);
+        return monthLength(m, isLeap(y)) + monthOffset(m, isLeap(y)) + yearOffset(y);
+    }
+
+    /**
+     * Whether a date is the last day of its month
+     *
+     * @param serial is the serial number of a date
+     * @return
+     */
+    public static boolean isEndOfMonth(final long serial) {
+        return serial == endOfMonth(serial);
+    }
+
+    /**
+     * Next given weekday following or equal to the given date
+     *
+     * @param serial is the serial number of a date
+     * @param dayOfWeek is the desired week day, from 1 (Sunday) till 7 (Saturday)
+     * @return the serial number of the resulting date
+     */
+    public static long nextWeekday(final long serial, final int dayOfWeek) {
+        final int wd = weekday(serial);
+        return serial + (wd > dayOfWeek ? 7 : 0) - wd + dayOfWeek;
+    }
+
+    /**
+     * n-th given weekday in the given month and year
+     * <p>
+     * E.g., the 4th Thursday of March, 1998 was March 26th, 1998.
+     *
+     * @see http://www.cpearson.com/excel/DateTimeWS.htm
+     *
+     * @param nth is the desired week
+     * @param dayOfWeek is the desired week day, from 1 (Sunday) till 7 (Saturday)
+     * @param month is the desired month, from 1 (January) till 12 (December)
+     * @param year is the desired year
+     * @return the serial number of the resulting date
+     */
+    public static long nthWeekday(final int nth, final int dayOfWeek, final int month, final int year) {
+        MFL.require(nth > 0, "zeroth day of week in a given (month, year) is undefined"); // TODO: message
+        MFL.require(nth < 6, "no more than 5 weekday in a given (month, year)"); // TODO: message
+        final int first = weekday(fromDMY(1, month, year));
+        final int skip = nth - (dayOfWeek >= first ? 1 : 0);
+        return fromDMY(1 + dayOfWeek - first + skip * 7, month, year);
+    }
+
+    /**
+     * This method is intended to calculate the serial number of a (day, month, year)
+     *
+     * @param d is the day as a number
+     * @param m is the month as a number
+     * @param y is the year as a number
+     * @return the serial number of the given date
+     */
+    public static long fromDMY(final int d, final int m, final int y) {
+        // the message is only built on failure, this is on the path of every date computation
+        if (y <= 1900 || y > 2199)
+            throw new LibraryException("year(" + y + ") out of bound. It must be in [1901,2199]"); // TODO: message
+        MFL.require(m > 0 && m < 13 , "month outside JANUARY-December range [1,12]"); // TODO: message
+        final boolean leap = isLeap(y);
+        final int len = monthLength(m, leap);
+        final int offset = monthOffset(m, leap);
+        MFL.ensure(d > 0 && d <= len , "day outside month day-range"); // TODO: message
+        return d + offset + yearOffset(y);
+    }
+
+    /**
+     * Returns the length of a certain month
+     *
+     * @param m is the desired month, as a number
+     * @param leapYear if <code>true</code> means a leap year
+     * @return the length of a certain month
+     */
+    public static int monthLength(final int m, final boolean leapYear) {
+        return (leapYear ? monthLeapLength[m - 1] : monthLength[m - 1]);
+    }
+
+    /**
+     * Returns the offset of a certain month
+     *
+     * @param m is the desired month, as a number. If you specify 13, you will get the number of days of a year
+     * @param leapYear if <code>true</code> means a leap year
+     * @return the offset of a certain month or the length of an year
+     */
+    public static int monthOffset(final int m, final boolean leapYear) {
+        return (leapYear ? monthLeapOffset[m - 1] : monthOffset[m - 1]);
+    }
+
+    /**
+     * Returns the offset of a certain year
+     *
+     * @param year is the desired year
+     * @return the serial number of December 31st of the preceding year
+     */
+    public static long yearOffset(final int year) {
+        return yearOffset[year - 1900];
+    }
+
+
+    //
+    // package private static methods
+    //
+    // Arithmetic decomposition of a serial number. It is used to build the
+    // packed tables and as a fallback for serials outside the allowed range.
+    //
+
+    static int computeMonth(final long serial) {
+        final int y = computeYear(serial);
+        final int d = (int) (serial - yearOffset(y)); // dayOfYear is 1 based
+        int m = d / 30 + 1;
+        final boolean leap = isLeap(y);
+        while (d <= monthOffset(m, leap)) {
+            --m;
+        }
+        while (d > monthOffset(m + 1, leap)) {
+            ++m;
+        }
+        return m;
+    }
+
+    static int computeYear(final long serial) {
+        int y = (int) (serial / 365) + 1900;
+        if (serial <= yearOffset(y)) {
+            --y;
+        }
+        return y;
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static int[] buildFields() {
+        final int[] result = new int[MAX_SERIAL - MIN_SERIAL + 1];
+        int i = 0;
+        for (int y = 1901; y <= 2199; y++) {
+            final boolean leap = isLeap(y);
+            int doy = 0;
+            for (int m = 1; m <= 12; m++) {
+                final int len = monthLength(m, leap);
+                for (int d = 1; d <= len; d++) {
+                    ++doy;
+                    result[i++] = d | (m << MONTH_SHIFT) | (doy << DAY_OF_YEAR_SHIFT) | ((y - 1900) << YEAR_SHIFT);
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -84,6 +84,42 @@ public class DayCounter {
         return impl.yearFraction(dateStart, dateEnd, refPeriodStart, refPeriodEnd);
 	}
 	
+	/**
+	 * Returns the number of days between pairs of dates given as serial numbers.
+	 * 
+	 * @param start the serial numbers of the start dates
+	 * @param end the serial numbers of the end dates
+	 * @param out receives the day counts
+	 * @return out
+	 * @see #dayCount(Date, Date)
+	 */
+	public long[] dayCounts(final long[] start, final long[] end, final long[] out){
+		MFL.require(impl != null, NO_IMPLEMENTATION_PROVIDED);
+		MFL.require(start.length == end.length, "start and end dates have different sizes");
+		MFL.require(out.length >= start.length, "output array shorter than the input");
+		impl.dayCounts(start, end, out);
+		return out;
+	}
+	
+	/**
+	 * Returns the periods between pairs of dates given as serial numbers, as fractions of year,
+	 * without reference periods. The common day counters work on the serial numbers directly,
+	 * in loops free of {@link Date} objects.
+	 * 
+	 * @param start the serial numbers of the start dates
+	 * @param end the serial numbers of the end dates
+	 * @param out receives the year fractions
+	 * @return out
+	 * @see #yearFraction(Date, Date)
+	 */
+	public double[] yearFractions(final long[] start, final long[] end, final double[] out){
+		MFL.require(impl != null, NO_IMPLEMENTATION_PROVIDED);
+		MFL.require(start.length == end.length, "start and end dates have different sizes");
+		MFL.require(out.length >= start.length, "output array shorter than the input");
+		impl.yearFractions(start, end, out);
+		return out;
+	}
+	
 	//The two following mimick operator overloading in Quantlib "==" and "!="
     /**
      * Returns <tt>true</tt> if <code>this</code> and <code>other</code> belong to the same derived class.
@@ -120,6 +156,31 @@ public class DayCounter {
 		protected long dayCount(final Date dateStart, final Date dateEnd){
 			return dateEnd.sub(dateStart);
 		}
+		
+		/**
+		 * To be overloaded by day counters which can work on serial numbers
+		 * @param start
+		 * @param end
+		 * @param out
+		 */
+		protected void dayCounts(final long[] start, final long[] end, final long[] out){
+			for (int i = 0; i < start.length; i++) {
+				out[i] = dayCount(Date.of(start[i]), Date.of(end[i]));
+			}
+		}
+		
+		/**
+		 * To be overloaded by day counters which can work on serial numbers
+		 * @param start
+		 * @param end
+		 * @param out
+		 */
+		protected void yearFractions(final long[] start, final long[] end, final double[] out){
+			final Date none = new Date();
+			for (int i = 0; i < start.length; i++) {
+				out[i] = yearFraction(Date.of(start[i]), Date.of(end[i]), none, none);
+			}
+		}
 	}
 
 }
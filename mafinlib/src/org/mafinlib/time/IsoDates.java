@@ -0,0 +1,289 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.io.IOException;
+
+import org.mafinlib.library.exceptions.LibraryException;
+
+/**
+ * Static parsing and formatting of ISO 8601 dates
+ * <p>
+ * Converts between serial numbers and the extended <i>yyyy-MM-dd</i> or basic <i>yyyyMMdd</i>
+ * text formats, reading from a {@link CharSequence} or from ASCII bytes and writing to an
+ * {@link Appendable}, a {@link StringBuilder} or a byte array. Nothing is allocated, except
+ * for the exception thrown on malformed input, so that files holding millions of dates can be
+ * loaded without going through {@link java.util.Calendar} or {@link java.text.DateFormat}.
+ * <p>
+ * The format is told by the length of the text: 10 characters for the extended format and 8
+ * for the basic one.
+ *
+ * @see DateSerials
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class IsoDates {
+
+    /**
+     * Length of the extended format, <i>yyyy-MM-dd</i>
+     */
+    public static final int EXTENDED_LENGTH = 10;
+
+    /**
+     * Length of the basic format, <i>yyyyMMdd</i>
+     */
+    public static final int BASIC_LENGTH = 8;
+
+    // utility class
+    private IsoDates() {
+    }
+
+
+    //
+    // public static methods :: parsing
+    //
+
+    /**
+     * @param s a date in the <i>yyyy-MM-dd</i> or <i>yyyyMMdd</i> format
+     * @return the serial number of the date
+     */
+    public static long parse(final CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    /**
+     * Parses the date held by the characters of s from <code>from</code>, inclusive, to
+     * <code>to</code>, exclusive.
+     *
+     * @return the serial number of the date
+     */
+    public static long parse(final CharSequence s, final int from, final int to) {
+        final int length = to - from;
+        final int y, m, d;
+        if (length == EXTENDED_LENGTH) {
+            if (s.charAt(from + 4) != '-' || s.charAt(from + 7) != '-')
+                throw malformed(s.subSequence(from, to));
+            y = digits(s, from, 4);
+            m = digits(s, from + 5, 2);
+            d = digits(s, from + 8, 2);
+        } else if (length == BASIC_LENGTH) {
+            y = digits(s, from, 4);
+            m = digits(s, from + 4, 2);
+            d = digits(s, from + 6, 2);
+        } else {
+            throw malformed(s.subSequence(from, to));
+        }
+        final long serial = serial(d, m, y);
+        if (serial < 0)
+            throw malformed(s.subSequence(from, to));
+        return serial;
+    }
+
+    /**
+     * Parses the date held by the ASCII bytes of b from <code>from</code>, inclusive, to
+     * <code>to</code>, exclusive.
+     *
+     * @return the serial number of the date
+     */
+    public static long parse(final byte[] b, final int from, final int to) {
+        final int length = to - from;
+        final int y, m, d;
+        if (length == EXTENDED_LENGTH) {
+            if (b[from + 4] != '-' || b[from + 7] != '-')
+                throw malformed(ascii(b, from, to));
+            y = digits(b, from, 4);
+            m = digits(b, from + 5, 2);
+            d = digits(b, from + 8, 2);
+        } else if (length == BASIC_LENGTH) {
+            y = digits(b, from, 4);
+            m = digits(b, from + 4, 2);
+            d = digits(b, from + 6, 2);
+        } else {
+            throw malformed(ascii(b, from, to));
+        }
+        final long serial = serial(d, m, y);
+        if (serial < 0)
+            throw malformed(ascii(b, from, to));
+        return serial;
+    }
+
+    /**
+     * @param s a date in the <i>yyyy-MM-dd</i> or <i>yyyyMMdd</i> format
+     * @return the canonical instance of the date
+     */
+    public static Date parseDate(final CharSequence s) {
+        return Date.of(parse(s));
+    }
+
+
+    //
+    // public static methods :: formatting
+    //
+
+    /**
+     * Appends the date in the <i>yyyy-MM-dd</i> format.
+     *
+     * @return sb
+     */
+    public static StringBuilder append(final StringBuilder sb, final long serial) {
+        final int y = DateSerials.year(serial);
+        final int m = DateSerials.month(serial);
+        final int d = DateSerials.dayOfMonth(serial);
+        sb.append((char) ('0' + y / 1000)).append((char) ('0' + y / 100 % 10))
+          .append((char) ('0' + y / 10 % 10)).append((char) ('0' + y % 10)).append('-')
+          .append((char) ('0' + m / 10)).append((char) ('0' + m % 10)).append('-')
+          .append((char) ('0' + d / 10)).append((char) ('0' + d % 10));
+        return sb;
+    }
+
+    /**
+     * Appends the date in the <i>yyyy-MM-dd</i> format.
+     *
+     * @return out
+     * @throws IOException
+     */
+    public static <A extends Appendable> A append(final A out, final long serial) throws IOException {
+        final int y = DateSerials.year(serial);
+        final int m = DateSerials.month(serial);
+        final int d = DateSerials.dayOfMonth(serial);
+        out.append((char) ('0' + y / 1000)).append((char) ('0' + y / 100 % 10))
+           .append((char) ('0' + y / 10 % 10)).append((char) ('0' + y % 10)).append('-')
+           .append((char) ('0' + m / 10)).append((char) ('0' + m % 10)).append('-')
+           .append((char) ('0' + d / 10)).append((char) ('0' + d % 10));
+        return out;
+    }
+
+    /**
+     * Writes the date in the <i>yyyy-MM-dd</i> format as ASCII bytes.
+     *
+     * @return the offset following the last written byte
+     */
+    public static int write(final byte[] b, final int offset, final long serial) {
+        final int y = DateSerials.year(serial);
+        final int m = DateSerials.month(serial);
+        final int d = DateSerials.dayOfMonth(serial);
+        b[offset] = (byte) ('0' + y / 1000);
+        b[offset + 1] = (byte) ('0' + y / 100 % 10);
+        b[offset + 2] = (byte) ('0' + y / 10 % 10);
+        b[offset + 3] = (byte) ('0' + y % 10);
+        b[offset + 4] = '-';
+        b[offset + 5] = (byte) ('0' + m / 10);
+        b[offset + 6] = (byte) ('0' + m % 10);
+        b[offset + 7] = '-';
+        b[offset + 8] = (byte) ('0' + d / 10);
+        b[offset + 9] = (byte) ('0' + d % 10);
+        return offset + EXTENDED_LENGTH;
+    }
+
+    /**
+     * Writes the date in the <i>yyyyMMdd</i> format as ASCII bytes.
+     *
+     * @return the offset following the last written byte
+     */
+    public static int writeBasic(final byte[] b, final int offset, final long serial) {
+        final int y = DateSerials.year(serial);
+        final int m = DateSerials.month(serial);
+        final int d = DateSerials.dayOfMonth(serial);
+        b[offset] = (byte) ('0' + y / 1000);
+        b[offset + 1] = (byte) ('0' + y / 100 % 10);
+        b[offset + 2] = (byte) ('0' + y / 10 % 10);
+        b[offset + 3] = (byte) ('0' + y % 10);
+        b[offset + 4] = (byte) ('0' + m / 10);
+        b[offset + 5] = (byte) ('0' + m % 10);
+        b[offset + 6] = (byte) ('0' + d / 10);
+        b[offset + 7] = (byte) ('0' + d % 10);
+        return offset + BASIC_LENGTH;
+    }
+
+    /**
+     * @return the date in the <i>yyyy-MM-dd</i> format
+     */
+    public static String toString(final long serial) {
+        return append(new StringBuilder(EXTENDED_LENGTH), serial).toString();
+    }
+
+
+    //
+    // private static methods
+    //
+
+    /**
+     * @return the value of n decimal digits, or a negative number if any of them is not a digit
+     */
+    private static int digits(final CharSequence s, final int from, final int n) {
+        int result = 0;
+        int invalid = 0;
+        for (int i = from; i < from + n; i++) {
+            final int digit = s.charAt(i) - '0';
+            invalid |= digit | (9 - digit);
+            result = 10 * result + digit;
+        }
+        return invalid < 0 ? -1 : result;
+    }
+
+    private static int digits(final byte[] b, final int from, final int n) {
+        int result = 0;
+        int invalid = 0;
+        for (int i = from; i < from + n; i++) {
+            final int digit = b[i] - '0';
+            invalid |= digit | (9 - digit);
+            result = 10 * result + digit;
+        }
+        return invalid < 0 ? -1 : result;
+    }
+
+    /**
+     * @return the serial number of the date, or -1 if it is not a valid one
+     */
+    private static long serial(final int d, final int m, final int y) {
+        // negative values stand for non digits
+        if (y <= 1900 || y > 2199 || m < 1 || m > 12 || d < 1)
+            return -1;
+        final boolean leap = DateSerials.isLeap(y);
+        if (d > DateSerials.monthLength(m, leap))
+            return -1;
+        return d + DateSerials.monthOffset(m, leap) + DateSerials.yearOffset(y);
+    }
+
+    private static LibraryException malformed(final CharSequence text) {
+        return new LibraryException("malformed or invalid date (" + text + "), expected yyyy-MM-dd or yyyyMMdd");
+    }
+
+    /**
+     * Lazy view of ASCII bytes, only read to build error messages
+     */
+    private static CharSequence ascii(final byte[] b, final int from, final int to) {
+        return new CharSequence() {
+            @Override
+            public int length() {
+                return to - from;
+            }
+
+            @Override
+            public char charAt(final int index) {
+                return (char) (b[from + index] & 0xFF);
+            }
+
+            @Override
+            public CharSequence subSequence(final int start, final int end) {
+                return ascii(b, from + start, from + end);
+            }
+
+            @Override
+            public String toString() {
+                return new StringBuilder(this).toString();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,184 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+
+/**
+ * Joint calendar
+ * <p>
+ * Depending on the chosen rule, this calendar has a set of business days given by either
+ * the union or the intersection of the sets of business days of the given calendars.
+ * <p>
+ * If all the given calendars are compiled when the joint calendar is created, the joint
+ * calendar is compiled as well: its bitmap is computed once from the bitmaps of the
+ * members, a 64-day word at a time, with a bitwise AND ({@link JointCalendarRule#JoinHolidays})
+ * or OR ({@link JointCalendarRule#JoinBusinessDays}), and it is computed again whenever a
+ * holiday of a member is added or removed.
+ *
+ * @see Calendar#compile()
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public class JointCalendar extends Calendar {
+
+    //
+    // public constructors
+    //
+
+    public JointCalendar(final Calendar c1, final Calendar c2) {
+        this(c1, c2, JointCalendarRule.JoinHolidays);
+    }
+
+    public JointCalendar(final Calendar c1, final Calendar c2, final JointCalendarRule rule) {
+        this(Arrays.asList(c1, c2), rule);
+    }
+
+    public JointCalendar(final Calendar c1, final Calendar c2, final Calendar c3, final JointCalendarRule rule) {
+        this(Arrays.asList(c1, c2, c3), rule);
+    }
+
+    public JointCalendar(final Calendar c1, final Calendar c2, final Calendar c3, final Calendar c4, final JointCalendarRule rule) {
+        this(Arrays.asList(c1, c2, c3, c4), rule);
+    }
+
+    public JointCalendar(final List<Calendar> calendars, final JointCalendarRule rule) {
+        MFL.require(calendars != null && !calendars.isEmpty(), "no calendars to be joined");
+        MFL.require(rule != null, "null joint calendar rule");
+        boolean compiled = true;
+        for (final Calendar c : calendars) {
+            MFL.require(c != null && !c.empty(), "null or empty calendar");
+            compiled &= c.isCompiled();
+        }
+        impl = new JointImpl(new ArrayList<Calendar>(calendars), rule);
+        if (compiled) {
+            compile();
+        }
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    private final class JointImpl extends Impl {
+
+        private final Calendar[] calendars;
+        private final JointCalendarRule rule;
+
+        private JointImpl(final List<Calendar> calendars, final JointCalendarRule rule) {
+            this.calendars = calendars.toArray(new Calendar[calendars.size()]);
+            this.rule = rule;
+        }
+
+        @Override
+        public String name() {
+            final StringBuilder sb = new StringBuilder();
+            switch (rule) {
+            case JoinHolidays:
+                sb.append("JoinHolidays(");
+                break;
+            case JoinBusinessDays:
+                sb.append("JoinBusinessDays(");
+                break;
+            default:
+                throw new LibraryException("unknown joint calendar rule");
+            }
+            for (int i = 0; i < calendars.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append(calendars[i].name());
+            }
+            return sb.append(')').toString();
+        }
+
+        @Override
+        public boolean isBusinessDay(final Date date) {
+            switch (rule) {
+            case JoinHolidays:
+                for (final Calendar c : calendars) {
+                    if (c.isHoliday(date))
+                        return false;
+                }
+                return true;
+            case JoinBusinessDays:
+                for (final Calendar c : calendars) {
+                    if (c.isBusinessDay(date))
+                        return true;
+                }
+                return false;
+            default:
+                throw new LibraryException("unknown joint calendar rule");
+            }
+        }
+
+        @Override
+        public boolean isWeekend(final Weekday w) {
+            switch (rule) {
+            case JoinHolidays:
+                for (final Calendar c : calendars) {
+                    if (c.isWeekend(w))
+                        return true;
+                }
+                return false;
+            case JoinBusinessDays:
+                for (final Calendar c : calendars) {
+                    if (!c.isWeekend(w))
+                        return false;
+                }
+                return true;
+            default:
+                throw new LibraryException("unknown joint calendar rule");
+            }
+        }
+
+        @Override
+        protected long[] businessDayWords() {
+            final boolean and = rule == JointCalendarRule.JoinHolidays;
+            final long[] bits = new long[BusinessDayBitmap.wordCount()];
+            for (int w = 0; w < bits.length; w++) {
+                long word = calendars[0].businessDayWord(w);
+                for (int i = 1; i < calendars.length; i++) {
+                    word = and ? word & calendars[i].businessDayWord(w) : word | calendars[i].businessDayWord(w);
+                }
+                bits[w] = word;
+            }
+            return bits;
+        }
+
+        @Override
+        protected long dependencyVersion() {
+            // versions only grow, so any change to a member changes the sum
+            long result = 0;
+            for (final Calendar c : calendars) {
+                result += c.version();
+            }
+            return result;
+        }
+
+        @Override
+        protected long rulesVersion() {
+            long result = 31 * super.rulesVersion() + rule.ordinal();
+            for (final Calendar c : calendars) {
+                result = 31 * result + c.rulesVersion();
+            }
+            return result;
+        }
+    }
+
+}
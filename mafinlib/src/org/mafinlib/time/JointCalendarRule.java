@@ -0,0 +1,31 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+/**
+ * Rules for joining calendars
+ *
+ * @see JointCalendar
+ */
+public enum JointCalendarRule {
+	/**
+	 * A date is a holiday for the joint calendar
+	 * if it is a holiday for any of the given calendars.
+	 */
+	JoinHolidays,
+
+	/**
+	 * A date is a business day for the joint calendar
+	 * if it is a business day for any of the given calendars.
+	 */
+	JoinBusinessDays;
+}
@@ -18,7 +18,13 @@ import java.util.Locale;
 import org.mafinlib.MFL;
 import org.mafinlib.library.exceptions.LibraryException;
 
-
+/**
+ * Period of time
+ * <p>
+ * Periods are mutable, see {@link #addAssign(Period)} and {@link #normalize()}: code which
+ * keeps or shares a period, including the constants below, must not modify it. {@link Tenor}
+ * is the immutable counterpart.
+ */
 public class Period implements Cloneable{
 
     private static final String UNKNOWN_FREQUENCY = "unknown frequency";
@@ -133,6 +139,16 @@ public class Period implements Cloneable{
         }
     }
 
+    /**
+     * To create a period from a tenor
+     *
+     * @param tenor
+     */
+    public Period(final Tenor tenor) {
+        this.length = tenor.length();
+        this.units = tenor.units();
+    }
+
 
     //
     // implements Cloneable
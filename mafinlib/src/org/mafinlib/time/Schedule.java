@@ -0,0 +1,472 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+
+/**
+ * Payment schedule
+ * <p>
+ * Generates the dates of a schedule between an effective and a termination date, going
+ * forward or backward by the given tenor, with optional short or long stubs given by a
+ * first date and a next-to-last date, and with end-of-month handling. The generation
+ * follows the one of QuantLib.
+ * <p>
+ * Schedules are immutable and keep their dates as a <code>long[]</code> of serial numbers,
+ * so that they can be shared between trades; see {@link ScheduleCache}.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class Schedule {
+
+    private final long[] dates;
+    // isRegular[i] refers to the period between dates[i] and dates[i+1]
+    private final boolean[] isRegular;
+
+    private final Calendar calendar;
+    private final BusinessDayConvention convention;
+    private final BusinessDayConvention terminationDateConvention;
+    private final Period tenor;
+    private final DateGenerationRule rule;
+    private final boolean endOfMonth;
+
+
+    //
+    // public constructors
+    //
+
+    /**
+     * Builds a schedule from the given dates, which are used as they are.
+     *
+     * @param dates
+     * @param calendar
+     * @param convention
+     */
+    public Schedule(final List<Date> dates, final Calendar calendar, final BusinessDayConvention convention) {
+        this.dates = new long[dates.size()];
+        for (int i = 0; i < this.dates.length; i++) {
+            this.dates[i] = dates.get(i).serialNumber();
+        }
+        this.isRegular = null;
+        this.calendar = calendar;
+        this.convention = convention;
+        this.terminationDateConvention = convention;
+        this.tenor = null;
+        this.rule = null;
+        this.endOfMonth = false;
+    }
+
+    public Schedule(
+            final Date effectiveDate,
+            final Date terminationDate,
+            final Period tenor,
+            final Calendar calendar,
+            final BusinessDayConvention convention,
+            final BusinessDayConvention terminationDateConvention,
+            final DateGenerationRule rule,
+            final boolean endOfMonth) {
+        this(effectiveDate, terminationDate, tenor, calendar, convention, terminationDateConvention,
+                rule, endOfMonth, new Date(), new Date());
+    }
+
+    /**
+     * @param effectiveDate
+     * @param terminationDate
+     * @param tenor the length of a regular period, a null tenor implies {@link DateGenerationRule#Zero}
+     * @param calendar
+     * @param convention the adjustment of all the dates but the termination date
+     * @param terminationDateConvention the adjustment of the termination date
+     * @param rule
+     * @param endOfMonth whether dates are kept at the end of the month; ignored for tenors shorter than a month
+     * @param firstDate the end of the first period, giving a stub at the beginning, or a null date
+     * @param nextToLastDate the start of the last period, giving a stub at the end, or a null date
+     */
+    public Schedule(
+            final Date effectiveDate,
+            final Date terminationDate,
+            final Period tenor,
+            final Calendar calendar,
+            final BusinessDayConvention convention,
+            final BusinessDayConvention terminationDateConvention,
+            final DateGenerationRule rule,
+            final boolean endOfMonth,
+            final Date firstDate,
+            final Date nextToLastDate) {
+
+        MFL.require(effectiveDate != null && !effectiveDate.isNull(), "null effective date");
+        MFL.require(terminationDate != null && !terminationDate.isNull(), "null termination date");
+        MFL.require(effectiveDate.lt(terminationDate), "effective date (" + effectiveDate
+                + ") later than or equal to termination date (" + terminationDate + ")");
+        MFL.require(calendar != null && !calendar.empty(), "null calendar");
+
+        final long effective = effectiveDate.serialNumber();
+        final long termination = terminationDate.serialNumber();
+        final long first = firstDate == null ? 0 : firstDate.serialNumber();
+        final long nextToLast = nextToLastDate == null ? 0 : nextToLastDate.serialNumber();
+
+        DateGenerationRule generation = rule;
+        Period step = null;
+        if (tenor == null || tenor.length() == 0) {
+            generation = DateGenerationRule.Zero;
+        } else {
+            MFL.require(tenor.length() > 0, "non positive tenor (" + tenor + ") not allowed");
+            // periods are mutable, keep a copy
+            step = new Period(tenor.length(), tenor.units());
+        }
+
+        switch (generation) {
+        case Zero:
+            step = new Period(0, TimeUnit.Years);
+            MFL.require(first == 0, "first date incompatible with " + generation + " date generation rule");
+            MFL.require(nextToLast == 0, "next to last date incompatible with " + generation + " date generation rule");
+            break;
+        case Backward:
+        case Forward:
+            MFL.require(first == 0 || (first > effective && first < termination), "first date (" + firstDate
+                    + ") out of effective-termination date range [" + effectiveDate + ", " + terminationDate + ")");
+            MFL.require(nextToLast == 0 || (nextToLast > effective && nextToLast < termination), "next to last date ("
+                    + nextToLastDate + ") out of effective-termination date range (" + effectiveDate + ", " + terminationDate + "]");
+            break;
+        default:
+            throw new LibraryException("unknown rule (" + generation + ")");
+        }
+
+        this.calendar = calendar;
+        this.convention = convention;
+        this.terminationDateConvention = terminationDateConvention;
+        this.tenor = step;
+        this.rule = generation;
+        // end of month only makes sense for tenors of at least one month, never for a single period
+        this.endOfMonth = endOfMonth && generation != DateGenerationRule.Zero && step.length() > 0
+                && (step.units() == TimeUnit.Months || step.units() == TimeUnit.Years);
+
+        final Buffer buffer = new Buffer();
+        final int n = step.length();
+        final TimeUnit units = step.units();
+        long seed;
+        int periods = 1;
+
+        switch (generation) {
+        case Zero:
+            seed = effective;
+            buffer.add(effective, true);
+            buffer.add(termination, true);
+            break;
+
+        case Backward:
+            // dates are collected from the last one and reversed at the end
+            buffer.add(termination, true);
+            seed = termination;
+            if (nextToLast != 0) {
+                buffer.add(nextToLast, advance(seed, -periods * n, units, this.endOfMonth) == nextToLast);
+                seed = nextToLast;
+            }
+            final long exitDate = first != 0 ? first : effective;
+            for (;;) {
+                final long temp = advance(seed, -periods * n, units, this.endOfMonth);
+                if (temp < exitDate) {
+                    if (first != 0 && calendar.adjust(buffer.last(), convention) != calendar.adjust(first, convention))
+                        buffer.add(first, false);
+                    break;
+                } else {
+                    // skip dates that would result in duplicates after adjustment
+                    if (calendar.adjust(buffer.last(), convention) != calendar.adjust(temp, convention))
+                        buffer.add(temp, true);
+                    ++periods;
+                }
+            }
+            if (calendar.adjust(buffer.last(), convention) != calendar.adjust(effective, convention))
+                buffer.add(effective, false);
+            buffer.reverse();
+            break;
+
+        case Forward:
+            buffer.add(effective, true);
+            seed = effective;
+            if (first != 0) {
+                buffer.add(first, advance(seed, periods * n, units, this.endOfMonth) == first);
+                seed = first;
+            }
+            final long lastDate = nextToLast != 0 ? nextToLast : termination;
+            for (;;) {
+                final long temp = advance(seed, periods * n, units, this.endOfMonth);
+                if (temp > lastDate) {
+                    if (nextToLast != 0 && calendar.adjust(buffer.last(), convention) != calendar.adjust(nextToLast, convention))
+                        buffer.add(nextToLast, false);
+                    break;
+                } else {
+                    // skip dates that would result in duplicates after adjustment
+                    if (calendar.adjust(buffer.last(), convention) != calendar.adjust(temp, convention))
+                        buffer.add(temp, true);
+                    ++periods;
+                }
+            }
+            if (calendar.adjust(buffer.last(), terminationDateConvention) != calendar.adjust(termination, terminationDateConvention))
+                buffer.add(termination, false);
+            break;
+
+        default:
+            throw new LibraryException("unknown rule (" + generation + ")");
+        }
+
+        final long[] d = buffer.dates;
+        final int size = buffer.size;
+
+        // adjustments
+        if (this.endOfMonth && calendar.isEndOfMonth(seed)) {
+            // adjust to end of month
+            if (convention == BusinessDayConvention.Unadjusted) {
+                for (int i = 1; i < size - 1; i++)
+                    d[i] = DateSerials.endOfMonth(d[i]);
+            } else {
+                for (int i = 1; i < size - 1; i++)
+                    d[i] = calendar.endOfMonth(d[i]);
+            }
+            if (terminationDateConvention != BusinessDayConvention.Unadjusted) {
+                d[0] = calendar.endOfMonth(d[0]);
+                d[size - 1] = calendar.endOfMonth(d[size - 1]);
+            } else {
+                // the termination date is the first if going backwards, the last otherwise
+                if (generation == DateGenerationRule.Backward)
+                    d[size - 1] = DateSerials.endOfMonth(d[size - 1]);
+                else
+                    d[0] = DateSerials.endOfMonth(d[0]);
+            }
+        } else {
+            for (int i = 0; i < size - 1; i++)
+                d[i] = calendar.adjust(d[i], convention);
+            // termination date is NOT adjusted as per ISDA specifications,
+            // unless otherwise specified in the confirmation of the deal
+            if (terminationDateConvention != BusinessDayConvention.Unadjusted)
+                d[size - 1] = calendar.adjust(d[size - 1], terminationDateConvention);
+        }
+
+        // final safety checks to remove extra next-to-last and second dates, if necessary:
+        // they can happen to be equal or later than the end date, or equal or earlier than the
+        // start date, due to EOM adjustments
+        buffer.collapseEnds();
+
+        MFL.ensure(buffer.size > 1, "degenerate single date (" + Date.of(buffer.dates[0]) + ") schedule");
+
+        this.dates = Arrays.copyOf(buffer.dates, buffer.size);
+        // the regularity of the periods, the one of the first date is meaningless
+        this.isRegular = Arrays.copyOfRange(buffer.regular, 1, buffer.size);
+    }
+
+
+    //
+    // public methods :: inspectors
+    //
+
+    public int size() {
+        return dates.length;
+    }
+
+    public boolean empty() {
+        return dates.length == 0;
+    }
+
+    /**
+     * @param i
+     * @return the i-th date, i in [0, size())
+     */
+    public Date date(final int i) {
+        return Date.of(dates[i]);
+    }
+
+    /**
+     * @param i
+     * @return the serial number of the i-th date, i in [0, size())
+     */
+    public long serial(final int i) {
+        return dates[i];
+    }
+
+    /**
+     * @return a copy of the serial numbers of the dates
+     */
+    public long[] serials() {
+        return dates.clone();
+    }
+
+    /**
+     * @return an unmodifiable view of the dates
+     */
+    public List<Date> dates() {
+        return new AbstractList<Date>() {
+            @Override
+            public Date get(final int index) {
+                return Date.of(dates[index]);
+            }
+
+            @Override
+            public int size() {
+                return dates.length;
+            }
+        };
+    }
+
+    public Date startDate() {
+        return Date.of(dates[0]);
+    }
+
+    public Date endDate() {
+        return Date.of(dates[dates.length - 1]);
+    }
+
+    /**
+     * @param d
+     * @return the index of the first date which is greater than or equal to d
+     */
+    public int lowerBound(final Date d) {
+        return DateIndex.lowerBound(dates, 0, dates.length, d.serialNumber());
+    }
+
+    /**
+     * @param refDate
+     * @return the first date of the schedule on or after refDate, or a null date
+     */
+    public Date nextDate(final Date refDate) {
+        final int i = lowerBound(refDate);
+        return i < dates.length ? Date.of(dates[i]) : new Date();
+    }
+
+    /**
+     * @param refDate
+     * @return the last date of the schedule before refDate, or a null date
+     */
+    public Date previousDate(final Date refDate) {
+        final int i = lowerBound(refDate);
+        return i > 0 ? Date.of(dates[i - 1]) : new Date();
+    }
+
+    /**
+     * @param i
+     * @return whether the i-th period, between dates i-1 and i, is regular; i in [1, size())
+     */
+    public boolean isRegular(final int i) {
+        MFL.require(isRegular != null, "full interface not available");
+        MFL.require(i >= 1 && i <= isRegular.length, "index (" + i + ") must be in [1, " + isRegular.length + "]");
+        return isRegular[i - 1];
+    }
+
+    public Calendar calendar() {
+        return calendar;
+    }
+
+    public BusinessDayConvention businessDayConvention() {
+        return convention;
+    }
+
+    public BusinessDayConvention terminationDateBusinessDayConvention() {
+        MFL.require(rule != null, "full interface not available");
+        return terminationDateConvention;
+    }
+
+    public Period tenor() {
+        MFL.require(tenor != null, "full interface not available");
+        return new Period(tenor.length(), tenor.units());
+    }
+
+    public DateGenerationRule rule() {
+        MFL.require(rule != null, "full interface not available");
+        return rule;
+    }
+
+    public boolean endOfMonth() {
+        MFL.require(rule != null, "full interface not available");
+        return endOfMonth;
+    }
+
+
+    //
+    // private methods
+    //
+
+    /**
+     * Advances by calendar days, as a calendar without holidays would do
+     */
+    private static long advance(final long s, final int n, final TimeUnit units, final boolean endOfMonth) {
+        final long d1 = DateSerials.add(s, n, units);
+        if (endOfMonth && DateSerials.isEndOfMonth(s))
+            return DateSerials.endOfMonth(d1);
+        return d1;
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    /**
+     * Growable arrays of dates and regularity flags used during the generation
+     */
+    private static final class Buffer {
+
+        private long[] dates = new long[16];
+        private boolean[] regular = new boolean[16];
+        private int size;
+
+        private void add(final long date, final boolean isRegular) {
+            if (size == dates.length) {
+                dates = Arrays.copyOf(dates, 2 * size);
+                regular = Arrays.copyOf(regular, 2 * size);
+            }
+            dates[size] = date;
+            regular[size] = isRegular;
+            size++;
+        }
+
+        private long last() {
+            return dates[size - 1];
+        }
+
+        /**
+         * Reverses the dates; the regularity flag of a date refers to the period
+         * which ends on it, so the flags are shifted by one
+         */
+        private void reverse() {
+            final long[] d = new long[dates.length];
+            final boolean[] r = new boolean[regular.length];
+            for (int i = 0; i < size; i++) {
+                d[i] = dates[size - 1 - i];
+                // the flag of date i is the one collected with date i-1 going backward
+                r[i] = i == 0 || regular[size - i];
+            }
+            dates = d;
+            regular = r;
+        }
+
+        private void collapseEnds() {
+            if (size >= 2 && dates[size - 2] >= dates[size - 1]) {
+                regular[size - 2] = dates[size - 2] == dates[size - 1];
+                dates[size - 2] = dates[size - 1];
+                size--;
+            }
+            if (size >= 2 && dates[1] <= dates[0]) {
+                if (size > 2)
+                    regular[2] = dates[1] == dates[0];
+                dates[1] = dates[0];
+                System.arraycopy(dates, 1, dates, 0, size - 1);
+                System.arraycopy(regular, 1, regular, 0, size - 1);
+                size--;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mafinlib.MFL;
+
+/**
+ * Bounded cache of schedules
+ * <p>
+ * Portfolios often hold many trades with the same schedule: this cache builds each
+ * schedule once and hands out the shared, immutable instance afterwards. Entries are
+ * evicted in least recently used order once the maximum size is reached.
+ * <p>
+ * The key holds all the inputs of the generation, the calendar itself and its
+ * {@link Calendar#version() version}, so that adding or removing a holiday never returns a
+ * stale schedule. Calendars are compared by identity: calendars with the same name may have
+ * different holidays, so schedules are only shared by trades using the same calendar instance,
+ * e.g. one taken from the calendar registry.
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class ScheduleCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private static volatile ScheduleCache instance = null;
+
+    private final int maximumSize;
+    private final LinkedHashMap<Key, Schedule> schedules;
+
+
+    //
+    // public constructors
+    //
+
+    public ScheduleCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ScheduleCache(final int maximumSize) {
+        MFL.require(maximumSize > 0, "maximum size must be positive");
+        this.maximumSize = maximumSize;
+        this.schedules = new LinkedHashMap<Key, Schedule>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Schedule> eldest) {
+                return size() > ScheduleCache.this.maximumSize;
+            }
+        };
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * @return the cache shared by the whole library
+     */
+    public static ScheduleCache instance() {
+        if (instance == null) {
+            synchronized (ScheduleCache.class) {
+                if (instance == null) {
+                    instance = new ScheduleCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+
+    //
+    // public methods
+    //
+
+    public Schedule schedule(
+            final Date effectiveDate,
+            final Date terminationDate,
+            final Period tenor,
+            final Calendar calendar,
+            final BusinessDayConvention convention,
+            final BusinessDayConvention terminationDateConvention,
+            final DateGenerationRule rule,
+            final boolean endOfMonth) {
+        return schedule(effectiveDate, terminationDate, tenor, calendar, convention, terminationDateConvention,
+                rule, endOfMonth, new Date(), new Date());
+    }
+
+    /**
+     * Returns the cached schedule for the given inputs, building it if needed.
+     *
+     * @see Schedule#Schedule(Date, Date, Period, Calendar, BusinessDayConvention, BusinessDayConvention, DateGenerationRule, boolean, Date, Date)
+     */
+    public Schedule schedule(
+            final Date effectiveDate,
+            final Date terminationDate,
+            final Period tenor,
+            final Calendar calendar,
+            final BusinessDayConvention convention,
+            final BusinessDayConvention terminationDateConvention,
+            final DateGenerationRule rule,
+            final boolean endOfMonth,
+            final Date firstDate,
+            final Date nextToLastDate) {
+        MFL.require(effectiveDate != null && terminationDate != null, "null schedule inputs");
+        MFL.require(calendar != null && !calendar.empty(), "null calendar");
+
+        final Key key = new Key(effectiveDate.serialNumber(), terminationDate.serialNumber(),
+                tenor == null ? 0 : tenor.length(), tenor == null ? null : tenor.units(), calendar.impl, calendar.version(),
+                convention, terminationDateConvention, rule, endOfMonth,
+                firstDate == null ? 0 : firstDate.serialNumber(),
+                nextToLastDate == null ? 0 : nextToLastDate.serialNumber());
+
+        synchronized (schedules) {
+            final Schedule cached = schedules.get(key);
+            if (cached != null)
+                return cached;
+        }
+
+        // generation happens outside the lock; two threads may build the same
+        // schedule, the first one to get back wins
+        final Schedule schedule = new Schedule(effectiveDate, terminationDate, tenor, calendar, convention,
+                terminationDateConvention, rule, endOfMonth, firstDate, nextToLastDate);
+        synchronized (schedules) {
+            final Schedule cached = schedules.get(key);
+            if (cached != null)
+                return cached;
+            schedules.put(key, schedule);
+            return schedule;
+        }
+    }
+
+    public int size() {
+        synchronized (schedules) {
+            return schedules.size();
+        }
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public void clear() {
+        synchronized (schedules) {
+            schedules.clear();
+        }
+    }
+
+
+    //
+    // private inner classes
+    //
+
+    private static final class Key {
+
+        private final long effective;
+        private final long termination;
+        private final int length;
+        private final TimeUnit units;
+        // the implementation of the calendar, compared by identity
+        private final Object calendar;
+        private final long version;
+        private final BusinessDayConvention convention;
+        private final BusinessDayConvention terminationDateConvention;
+        private final DateGenerationRule rule;
+        private final boolean endOfMonth;
+        private final long first;
+        private final long nextToLast;
+        private final int hash;
+
+        private Key(final long effective, final long termination, final int length, final TimeUnit units,
+                final Object calendar, final long version, final BusinessDayConvention convention,
+                final BusinessDayConvention terminationDateConvention, final DateGenerationRule rule,
+                final boolean endOfMonth, final long first, final long nextToLast) {
+            this.effective = effective;
+            this.termination = termination;
+            this.length = length;
+            this.units = units;
+            this.calendar = calendar;
+            this.version = version;
+            this.convention = convention;
+            this.terminationDateConvention = terminationDateConvention;
+            this.rule = rule;
+            this.endOfMonth = endOfMonth;
+            this.first = first;
+            this.nextToLast = nextToLast;
+
+            int h = (int) (effective ^ (termination << 17));
+            h = 31 * h + length;
+            h = 31 * h + (units == null ? 0 : units.hashCode());
+            h = 31 * h + System.identityHashCode(calendar);
+            h = 31 * h + (int) version;
+            h = 31 * h + (convention == null ? 0 : convention.hashCode());
+            h = 31 * h + (terminationDateConvention == null ? 0 : terminationDateConvention.hashCode());
+            h = 31 * h + (rule == null ? 0 : rule.hashCode());
+            h = 31 * h + (endOfMonth ? 1 : 0);
+            h = 31 * h + (int) (first ^ (nextToLast << 17));
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            final Key k = (Key) o;
+            return effective == k.effective && termination == k.termination
+                    && length == k.length && units == k.units
+                    && version == k.version && endOfMonth == k.endOfMonth
+                    && first == k.first && nextToLast == k.nextToLast
+                    && convention == k.convention
+                    && terminationDateConvention == k.terminationDateConvention
+                    && rule == k.rule && calendar == k.calendar;
+        }
+    }
+
+}
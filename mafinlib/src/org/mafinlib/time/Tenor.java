@@ -0,0 +1,297 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import org.mafinlib.MFL;
+import org.mafinlib.library.exceptions.LibraryException;
+
+/**
+ * Immutable period of time
+ * <p>
+ * Unlike {@link Period}, a tenor cannot be modified, so it can be shared freely. It packs its
+ * length and time unit into a single <code>int</code>, see {@link #packed()}, and the tenors
+ * of length 0 to {@value #INTERNED_LENGTH} are interned: {@link #of(int, TimeUnit)} and
+ * {@link #parse(CharSequence)} return the same instance for them instead of allocating one.
+ * <p>
+ * Tenors are written and parsed in the short format, e.g. "3M", "10Y" or "1Y6M".
+ *
+ * @see Period
+ *
+ * @author Alessandro Gnoatto
+ *
+ */
+public final class Tenor {
+
+    /**
+     * The tenors from 0 up to this length are interned, for every time unit
+     */
+    public static final int INTERNED_LENGTH = 360;
+
+    private static final TimeUnit[] UNITS = TimeUnit.values();
+    private static final Tenor[] interned = new Tenor[UNITS.length * (INTERNED_LENGTH + 1)];
+
+    static {
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = new Tenor((i / UNITS.length) << 2 | (i % UNITS.length));
+        }
+    }
+
+    public static final Tenor ZERO = of(0, TimeUnit.Days);
+    public static final Tenor ONE_DAY = of(1, TimeUnit.Days);
+    public static final Tenor ONE_WEEK = of(1, TimeUnit.Weeks);
+    public static final Tenor ONE_MONTH = of(1, TimeUnit.Months);
+    public static final Tenor ONE_YEAR = of(1, TimeUnit.Years);
+
+    // length in the upper 30 bits, ordinal of the time unit in the lower 2
+    private final int packed;
+
+
+    //
+    // private constructors
+    //
+
+    private Tenor(final int packed) {
+        this.packed = packed;
+    }
+
+
+    //
+    // public static methods
+    //
+
+    /**
+     * @param length
+     * @param units
+     * @return the tenor, interned for lengths in [0, {@value #INTERNED_LENGTH}]
+     */
+    public static Tenor of(final int length, final TimeUnit units) {
+        MFL.require(units != null, "null time unit");
+        return fromPacked(pack(length, units.ordinal()));
+    }
+
+    /**
+     * @param p
+     * @return the tenor with the length and units of the given period
+     */
+    public static Tenor of(final Period p) {
+        return of(p.length(), p.units());
+    }
+
+    /**
+     * @param f
+     * @return the tenor corresponding to the given frequency
+     * @see Period#Period(Frequency)
+     */
+    public static Tenor of(final Frequency f) {
+        return of(new Period(f));
+    }
+
+    /**
+     * @param packed as returned by {@link #packed()}
+     * @return the tenor, interned for lengths in [0, {@value #INTERNED_LENGTH}]
+     */
+    public static Tenor fromPacked(final int packed) {
+        final int length = packed >> 2;
+        if (length >= 0 && length <= INTERNED_LENGTH)
+            return interned[length * UNITS.length + (packed & 3)];
+        return new Tenor(packed);
+    }
+
+    /**
+     * Parses tenors such as "3M", "10Y", "-1W", "2d" or "1Y6M". Units are case insensitive;
+     * compound tenors are added as by {@link Period#addAssign(Period)}.
+     *
+     * @param s
+     * @return the tenor
+     */
+    public static Tenor parse(final CharSequence s) {
+        MFL.require(s != null, "null tenor string");
+        return fromPacked(parsePacked(s, 0, s.length()));
+    }
+
+    /**
+     * Parses the tenor held by the characters of s from <code>from</code>, inclusive, to
+     * <code>to</code>, exclusive, without creating any object unless the tenor is not interned.
+     *
+     * @see #parse(CharSequence)
+     */
+    public static Tenor parse(final CharSequence s, final int from, final int to) {
+        MFL.require(s != null, "null tenor string");
+        if (from < 0 || from > to || to > s.length())
+            throw new LibraryException("invalid range [" + from + ", " + to + ")");
+        return fromPacked(parsePacked(s, from, to));
+    }
+
+
+    //
+    // public methods
+    //
+
+    public int length() {
+        return packed >> 2;
+    }
+
+    public TimeUnit units() {
+        return UNITS[packed & 3];
+    }
+
+    /**
+     * @return the length in the upper 30 bits and the ordinal of the time unit in the lower 2 bits
+     */
+    public int packed() {
+        return packed;
+    }
+
+    /**
+     * @return a new, mutable, period with the same length and units
+     */
+    public Period period() {
+        return new Period(length(), units());
+    }
+
+    public Tenor negative() {
+        return of(-length(), units());
+    }
+
+    public Tenor mul(final int scalar) {
+        return fromPacked(pack((long) scalar * length(), packed & 3));
+    }
+
+    /**
+     * @see Period#add(Period)
+     */
+    public Tenor add(final Tenor another) {
+        return fromPacked(add(packed, another.packed));
+    }
+
+    /**
+     * @see Period#frequency()
+     */
+    public Frequency frequency() {
+        return period().frequency();
+    }
+
+    @Override
+    public int hashCode() {
+        return packed;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return this == obj || (obj instanceof Tenor && ((Tenor) obj).packed == packed);
+    }
+
+    /**
+     * @return the tenor in short format, e.g. "3M"
+     */
+    @Override
+    public String toString() {
+        return length() + units().getShortFormat();
+    }
+
+
+    //
+    // private static methods
+    //
+
+    private static int parsePacked(final CharSequence s, final int from, final int to) {
+        MFL.require(from < to, "empty tenor string");
+        int result = 0;
+        boolean first = true;
+        int i = from;
+        while (i < to) {
+            boolean negative = false;
+            final char sign = s.charAt(i);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                i++;
+            }
+            long length = 0;
+            final int digits = i;
+            char c;
+            while (i < to && (c = s.charAt(i)) >= '0' && c <= '9') {
+                length = 10 * length + (c - '0');
+                if (length >= (1 << 29))
+                    throw new LibraryException("tenor length out of range in " + s.subSequence(from, to));
+                i++;
+            }
+            if (i == digits)
+                throw new LibraryException("no length given in " + s.subSequence(from, to));
+            if (i == to)
+                throw new LibraryException("no unit given in " + s.subSequence(from, to));
+            final int units;
+            switch (s.charAt(i)) {
+            case 'D':
+            case 'd':
+                units = TimeUnit.Days.ordinal();
+                break;
+            case 'W':
+            case 'w':
+                units = TimeUnit.Weeks.ordinal();
+                break;
+            case 'M':
+            case 'm':
+                units = TimeUnit.Months.ordinal();
+                break;
+            case 'Y':
+            case 'y':
+                units = TimeUnit.Years.ordinal();
+                break;
+            default:
+                throw new LibraryException("unknown '" + s.charAt(i) + "' unit in " + s.subSequence(from, to));
+            }
+            i++;
+            final int term = (int) (negative ? -length : length) << 2 | units;
+            result = first ? term : add(result, term);
+            first = false;
+        }
+        return result;
+    }
+
+    /**
+     * Packs a length, computed in long arithmetic so that overflows are caught, with the
+     * ordinal of a time unit.
+     */
+    private static int pack(final long length, final int units) {
+        if (length < -(1 << 29) || length >= (1 << 29))
+            throw new LibraryException("tenor length (" + length + ") out of range");
+        return (int) length << 2 | units;
+    }
+
+    /**
+     * Packed version of {@link Period#addAssign(Period)}
+     */
+    private static int add(final int p1, final int p2) {
+        final int l1 = p1 >> 2;
+        final int l2 = p2 >> 2;
+        final int u1 = p1 & 3;
+        final int u2 = p2 & 3;
+        if (l1 == 0)
+            return p2;
+        if (u1 == u2)
+            return pack((long) l1 + l2, u1);
+        final int days = TimeUnit.Days.ordinal();
+        final int weeks = TimeUnit.Weeks.ordinal();
+        final int months = TimeUnit.Months.ordinal();
+        final int years = TimeUnit.Years.ordinal();
+        if (u1 == years && u2 == months)
+            return pack(12L * l1 + l2, months);
+        if (u1 == months && u2 == years)
+            return pack(l1 + 12L * l2, months);
+        if (u1 == weeks && u2 == days)
+            return pack(7L * l1 + l2, days);
+        if (u1 == days && u2 == weeks)
+            return pack(l1 + 7L * l2, days);
+        throw new IllegalArgumentException("incompatible time unit");
+    }
+
+}
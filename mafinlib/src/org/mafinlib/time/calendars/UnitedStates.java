@@ -175,9 +175,15 @@ public class UnitedStates extends Calendar{
     
     private final class SettlementImpl extends WesternImpl {
 
+        // increase whenever the rules below change, see Calendar.Impl#rulesRevision()
+        private static final int RULES_REVISION = 1;
+
         @Override
         public String name() { return "US settlement"; }
 
+        @Override
+        protected int rulesRevision() { return RULES_REVISION; }
+
         @Override
         public boolean isBusinessDay(final Date date) {
             final Weekday w = date.weekday();
@@ -216,9 +222,15 @@ public class UnitedStates extends Calendar{
 
     private final class NyseImpl extends WesternImpl {
 
+        // increase whenever the rules below change, see Calendar.Impl#rulesRevision()
+        private static final int RULES_REVISION = 1;
+
         @Override
         public String name() { return "New York stock exchange"; }
 
+        @Override
+        protected int rulesRevision() { return RULES_REVISION; }
+
         @Override
         public boolean isBusinessDay(final Date date) {
             final Weekday w = date.weekday();
@@ -291,9 +303,15 @@ public class UnitedStates extends Calendar{
 
     private final class GovernmentBondImpl extends WesternImpl {
 
+        // increase whenever the rules below change, see Calendar.Impl#rulesRevision()
+        private static final int RULES_REVISION = 1;
+
         @Override
         public String name() { return "US government bond market"; }
 
+        @Override
+        protected int rulesRevision() { return RULES_REVISION; }
+
         @Override
         public boolean isBusinessDay(final Date date) {
             final Weekday w = date.weekday();
@@ -333,9 +351,15 @@ public class UnitedStates extends Calendar{
 
     private final class NercImpl extends WesternImpl {
 
+        // increase whenever the rules below change, see Calendar.Impl#rulesRevision()
+        private static final int RULES_REVISION = 1;
+
         @Override
         public String name(){ return "North American Energy Reliability Council";  }
 
+        @Override
+        protected int rulesRevision() { return RULES_REVISION; }
+
         @Override
         public boolean isBusinessDay(final Date date) {
             final Weekday w = date.weekday();
@@ -48,6 +48,20 @@ public class Actual365Fixed extends DayCounter{
 			return dayCount(dateStart, dateEnd)/365.0;
 		}
 
+		@Override
+		protected final void dayCounts(final long[] start, final long[] end, final long[] out){
+			for (int k = 0; k < start.length; k++) {
+				out[k] = end[k] - start[k];
+			}
+		}
+
+		@Override
+		protected final void yearFractions(final long[] start, final long[] end, final double[] out){
+			for (int k = 0; k < start.length; k++) {
+				out[k] = (end[k] - start[k]) / 365.0;
+			}
+		}
+
 	}
 
 }
@@ -12,8 +12,8 @@
 package org.mafinlib.time.daycounters;
 
 import org.mafinlib.time.Date;
+import org.mafinlib.time.DateSerials;
 import org.mafinlib.time.DayCounter;
-import org.mafinlib.time.Month;
 
 /**
  * "Actual/365 (No Leap)" day count convention, also known as
@@ -28,6 +28,17 @@ public class Actual365NoLeap extends DayCounter{
 		super.impl = new Impl();
 	}
 
+	/**
+	 * @return a day number which counts 365 days a year, February 29th being the same day as February 28th
+	 */
+	private static long noLeapSerial(final long serial){
+		final int y = DateSerials.year(serial);
+		final int m = DateSerials.month(serial);
+		final int d = DateSerials.dayOfMonth(serial);
+		final long s = d + DateSerials.monthOffset(m, false) + (y * 365L);
+		return (m == 2 && d == 29) ? s - 1 : s;
+	}
+
 	final private class Impl extends DayCounter.Impl {
 
 		
@@ -43,24 +54,21 @@ public class Actual365NoLeap extends DayCounter{
 		 * @return  the exact number of days between 2 dates, excluding leap days.
 		 */
 		public long dayCount(final Date d1, final Date d2){
-			
-			long[] MonthOffset = {0,  31,  59,  90, 120, 151,  // Jan - Jun 
-					181, 212, 243, 273, 304, 334   // Jun - Dec 
-					};
-			
-			long s1 = d1.dayOfMonth() + MonthOffset[d1.month().value() -1] + (d1.year() * 365);
-			long s2 = d2.dayOfMonth() + MonthOffset[d2.month().value() -1] + (d2.year() * 365);
-			
-			if (d1.month() == Month.February && d1.dayOfMonth() == 29){
-				--s1;
-			}
-			
-			if (d2.month() == Month.February && d2.dayOfMonth() == 29){
-				--s2;
+			return noLeapSerial(d2.serialNumber()) - noLeapSerial(d1.serialNumber());
+		}
+
+		@Override
+		protected final void dayCounts(final long[] start, final long[] end, final long[] out){
+			for (int k = 0; k < start.length; k++) {
+				out[k] = noLeapSerial(end[k]) - noLeapSerial(start[k]);
 			}
-			
-			return s2 - s1;
+		}
 
+		@Override
+		protected final void yearFractions(final long[] start, final long[] end, final double[] out){
+			for (int k = 0; k < start.length; k++) {
+				out[k] = (noLeapSerial(end[k]) - noLeapSerial(start[k])) / 365.0;
+			}
 		}
 
 		@Override
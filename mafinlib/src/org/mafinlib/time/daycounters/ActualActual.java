@@ -14,9 +14,11 @@ package org.mafinlib.time.daycounters;
 import org.mafinlib.MFL;
 import org.mafinlib.library.exceptions.LibraryException;
 import org.mafinlib.time.Date;
+import org.mafinlib.time.DateIndex;
+import org.mafinlib.time.DateSerials;
 import org.mafinlib.time.DayCounter;
-import org.mafinlib.time.Month;
 import org.mafinlib.time.Period;
+import org.mafinlib.time.Schedule;
 import org.mafinlib.time.TimeUnit;
 
 /**
@@ -40,11 +42,20 @@ public class ActualActual extends DayCounter{
         this(Convention.ISDA);
     }
 
-    public ActualActual(final ActualActual.Convention c/*,final Schedule schedule */) {
+    public ActualActual(final ActualActual.Convention c) {
+        this(c, null);
+    }
+
+    /**
+     * @param c
+     * @param schedule for the ISMA convention, the schedule providing the reference period of the
+     *        year fractions which are computed without one; it is ignored by the other conventions
+     */
+    public ActualActual(final ActualActual.Convention c, final Schedule schedule) {
         switch (c) {
             case ISMA:
             case Bond:
-                super.impl = new ImplISMA(/* schedule */);
+                super.impl = new ImplISMA(schedule);
                 break;
             case ISDA:
             case Historical:
@@ -62,6 +73,13 @@ public class ActualActual extends DayCounter{
     
     final private class ImplISMA extends DayCounter.Impl {
 
+        // serial numbers of the schedule dates, null if no schedule was given
+        private final long[] schedule;
+
+        private ImplISMA(final Schedule schedule) {
+            this.schedule = schedule == null ? null : schedule.serials();
+        }
+
         @Override
         public final String name(){
             return "Actual/Actual (ISMA)";
@@ -71,93 +89,41 @@ public class ActualActual extends DayCounter{
         public final double yearFraction(
                 final Date d1, final Date d2,
                 final Date d3, final Date d4) {
+            return yearFraction(d1.serialNumber(), d2.serialNumber(), serial(d3), serial(d4));
+        }
 
-            if (d1.equals(d2))
-                return 0.0;
-
-            if (d1.gt(d2))
-                return -yearFraction(d2, d1, d3, d4);
-
-            // when the reference period is not specified, try taking
-            // it equal to (d1,d2)
-            Date refPeriodStart = (!d3.isNull() ? d3 : d1);
-            Date refPeriodEnd   = (!d4.isNull() ? d4 : d2);
+        @Override
+        protected final void dayCounts(final long[] start, final long[] end, final long[] out) {
+            for (int k = 0; k < start.length; k++) {
+                out[k] = end[k] - start[k];
+            }
+        }
 
-            MFL.ensure(refPeriodEnd.gt(refPeriodStart) && refPeriodEnd.gt(d1) , "invalid reference period"); 
+        @Override
+        protected final void yearFractions(final long[] start, final long[] end, final double[] out) {
+            for (int k = 0; k < start.length; k++) {
+                out[k] = yearFraction(start[k], end[k], 0, 0);
+            }
+        }
 
-            // estimate roughly the length in months of a period
-            int months = (int) (0.5 + 12 * (refPeriodEnd.sub(refPeriodStart)) / 365.0);
+        /**
+         * @param refPeriodStart the serial number of the start of the reference period, 0 if not given
+         * @param refPeriodEnd the serial number of the end of the reference period, 0 if not given
+         */
+        private double yearFraction(final long s1, final long s2, final long refPeriodStart, final long refPeriodEnd) {
+            if (s1 == s2)
+                return 0.0;
 
-            // for short periods...
-            if (months == 0) {
-                // ...take the reference period as 1 year from d1
-                refPeriodStart = d1;
-                refPeriodEnd = d1.add(Period.ONE_YEAR_FORWARD);
-                months = 12;
-            }
+            if (s1 > s2)
+                return -yearFraction(s2, s1, refPeriodStart, refPeriodEnd);
 
-            final double period = months / 12.0;
-
-            if (d2.le(refPeriodEnd)) {
-                // here refPeriodEnd is a future (notional?) payment date
-                if (d1.ge(refPeriodStart))
-                    // here refPeriodStart is the last (maybe notional)
-                    // payment date.
-                    // refPeriodStart <= d1 <= d2 <= refPeriodEnd
-                    // [maybe the equality should be enforced, since
-                    // refPeriodStart < d1 <= d2 < refPeriodEnd
-                    // could give wrong results] ???
-                    return period * dayCount(d1, d2)
-                    / dayCount(refPeriodStart, refPeriodEnd);
-                else {
-                    // here refPeriodStart is the next (maybe notional)
-                    // payment date and refPeriodEnd is the second next
-                    // (maybe notional) payment date.
-                    // d1 < refPeriodStart < refPeriodEnd
-                    // AND d2 <= refPeriodEnd
-                    // this case is long first coupon
-
-                    // the last notional payment date
-                    final Date previousRef = refPeriodStart.add(new Period(
-                            -months, TimeUnit.Months));
-                    if (d2.gt(refPeriodStart))
-                        return yearFraction(d1, refPeriodStart, previousRef,
-                                refPeriodStart)
-                                + yearFraction(refPeriodStart, d2,
-                                        refPeriodStart, refPeriodEnd);
-                    else
-                        return yearFraction(d1, d2, previousRef,
-                                refPeriodStart);
-                }
-            } else {
-
-                // here refPeriodEnd is the last notional payment date
-                // d1 < refPeriodEnd < d2 AND refPeriodStart < refPeriodEnd
-                MFL.require(refPeriodStart.le(d1) , "invalid dates");
-
-                // now it is: refPeriodStart <= d1 < refPeriodEnd < d2
-
-                // the part from d1 to refPeriodEnd
-                double sum = yearFraction(d1, refPeriodEnd, refPeriodStart, refPeriodEnd);
-
-                // the part from refPeriodEnd to d2
-                // count how many regular periods are in [refPeriodEnd, d2],
-                // then add the remaining time
-                int i = 0;
-                Date newRefStart, newRefEnd;
-                do {
-                    newRefStart = refPeriodEnd.add(new Period(months * i, TimeUnit.Months));
-                    newRefEnd = refPeriodEnd.add(new Period(months * (i + 1), TimeUnit.Months));
-                    if (d2.lt(newRefEnd))
-                        break;
-                    else {
-                        sum += period;
-                        i++;
-                    }
-                } while (true);
-                sum += yearFraction(newRefStart, d2, newRefStart, newRefEnd);
-                return sum;
+            if (refPeriodStart == 0 && refPeriodEnd == 0 && schedule != null) {
+                // take the reference period from the coupon period containing s1
+                final int i = DateIndex.upperBound(schedule, 0, schedule.length, s1);
+                if (i > 0 && i < schedule.length)
+                    return isma(s1, s2, schedule[i - 1], schedule[i]);
             }
+            return isma(s1, s2, refPeriodStart, refPeriodEnd);
         }
     }
 
@@ -180,20 +146,24 @@ public class ActualActual extends DayCounter{
             if (dateStart.gt(dateEnd))
                 return -yearFraction(dateEnd, dateStart, new Date(), new Date());
 
-            final int y1 = dateStart.year();
-            final int y2 = dateEnd.year();
-            final double dib1 = Date.isLeap(dateStart.year()) ? 366.0 : 365.0;
-            final double dib2 = Date.isLeap(dateEnd.year())   ? 366.0 : 365.0;
-
-            double sum = y2 - y1 - 1;
+            return isda(dateStart.serialNumber(), dateEnd.serialNumber());
+        }
 
-            // Days from start to starting of following year
-            sum += (dib1 - dateStart.dayOfYear() + 1) / dib1;
-            // Days from beginning of year to the endDate
-            sum += (dateEnd.dayOfYear() - 1) / dib2;
-            return sum;
+        @Override
+        protected final void dayCounts(final long[] start, final long[] end, final long[] out) {
+            for (int k = 0; k < start.length; k++) {
+                out[k] = end[k] - start[k];
+            }
         }
 
+        @Override
+        protected final void yearFractions(final long[] start, final long[] end, final double[] out) {
+            for (int k = 0; k < start.length; k++) {
+                final long s1 = start[k];
+                final long s2 = end[k];
+                out[k] = s1 == s2 ? 0.0 : (s1 > s2 ? -isda(s2, s1) : isda(s1, s2));
+            }
+        }
     }
 
 
@@ -213,33 +183,152 @@ public class ActualActual extends DayCounter{
             if (dateStart.gt(dateEnd))
                 return -1.0 * yearFraction(dateEnd, dateStart, new Date(), new Date());
 
-            Date newD2 = dateEnd;
-            Date temp = dateEnd;
-            double sum = 0.0;
-            while (temp.gt(dateStart)) {
-                temp = newD2.add(Period.ONE_YEAR_BACKWARD);
-                if (temp.dayOfMonth() == 28 && temp.month().value() == 2 && Date.isLeap(temp.year()))
-                    temp.inc();
-                if (temp.ge(dateStart)) {
-                    sum += 1.0;
-                    newD2 = temp;
-                }
+            return afb(dateStart.serialNumber(), dateEnd.serialNumber());
+        }
+
+        @Override
+        protected final void dayCounts(final long[] start, final long[] end, final long[] out) {
+            for (int k = 0; k < start.length; k++) {
+                out[k] = end[k] - start[k];
             }
+        }
 
-            double den = 365.0;
+        @Override
+        protected final void yearFractions(final long[] start, final long[] end, final double[] out) {
+            for (int k = 0; k < start.length; k++) {
+                final long s1 = start[k];
+                final long s2 = end[k];
+                out[k] = s1 == s2 ? 0.0 : (s1 > s2 ? -afb(s2, s1) : afb(s1, s2));
+            }
+        }
+    }
 
-            if (Date.isLeap(newD2.year())) {
-                if (newD2.gt(new Date(29, Month.February, newD2.year())) &&
-                        dateStart.le(new Date(29, Month.February, newD2.year())))
-                    den += 1.0;
-            } else if (Date.isLeap(dateStart.year()))
-                if (newD2.gt(new Date(29, Month.February, dateStart.year())) &&
-                        dateStart.le(new Date(29, Month.February, dateStart.year())))
-                    den += 1.0;
-            return sum + dayCount(dateStart, newD2) / den;
+
+    //
+    // private static methods
+    //
+    // Serial number kernels for dateStart < dateEnd, shared by the single and the batch calculations.
+    //
+
+    /**
+     * ISMA year fraction for s1 <= s2, the reference period being given by r1 and r2, 0 when not
+     * specified. The notional payment dates are computed from the serial numbers of the reference
+     * period, without any {@link Date} or {@link Period} being created.
+     */
+    private static double isma(final long s1, final long s2, final long r1, final long r2) {
+        if (s1 == s2)
+            return 0.0;
+
+        // when the reference period is not specified, try taking
+        // it equal to (s1, s2)
+        long refPeriodStart = r1 != 0 ? r1 : s1;
+        long refPeriodEnd = r2 != 0 ? r2 : s2;
+
+        MFL.ensure(refPeriodEnd > refPeriodStart && refPeriodEnd > s1, "invalid reference period");
+
+        // estimate roughly the length in months of a period
+        int months = (int) (0.5 + 12 * (refPeriodEnd - refPeriodStart) / 365.0);
+
+        // for short periods...
+        if (months == 0) {
+            // ...take the reference period as 1 year from s1
+            refPeriodStart = s1;
+            refPeriodEnd = DateSerials.add(s1, 1, TimeUnit.Years);
+            months = 12;
         }
 
+        final double period = months / 12.0;
+
+        if (s2 <= refPeriodEnd) {
+            // here refPeriodEnd is a future (notional?) payment date
+            if (s1 >= refPeriodStart)
+                // refPeriodStart <= s1 <= s2 <= refPeriodEnd
+                return period * (s2 - s1) / (refPeriodEnd - refPeriodStart);
+
+            // long first coupon: s1 < refPeriodStart < refPeriodEnd AND s2 <= refPeriodEnd,
+            // refPeriodStart is the next (maybe notional) payment date
+
+            // the last notional payment date
+            final long previousRef = DateSerials.add(refPeriodStart, -months, TimeUnit.Months);
+            if (s2 > refPeriodStart)
+                return isma(s1, refPeriodStart, previousRef, refPeriodStart)
+                        + isma(refPeriodStart, s2, refPeriodStart, refPeriodEnd);
+            else
+                return isma(s1, s2, previousRef, refPeriodStart);
+        }
+
+        // here refPeriodEnd is the last notional payment date
+        // s1 < refPeriodEnd < s2 AND refPeriodStart < refPeriodEnd
+        MFL.require(refPeriodStart <= s1, "invalid dates");
+
+        // the part from s1 to refPeriodEnd
+        double sum = period * (refPeriodEnd - s1) / (refPeriodEnd - refPeriodStart);
+
+        // the part from refPeriodEnd to s2: count how many regular periods
+        // of the notional grid are in [refPeriodEnd, s2], then add the remaining time
+        int i = 0;
+        long newRefStart = refPeriodEnd;
+        long newRefEnd = DateSerials.add(refPeriodEnd, months, TimeUnit.Months);
+        while (s2 >= newRefEnd) {
+            sum += period;
+            i++;
+            newRefStart = newRefEnd;
+            newRefEnd = DateSerials.add(refPeriodEnd, months * (i + 1), TimeUnit.Months);
+        }
+        sum += isma(newRefStart, s2, newRefStart, newRefEnd);
+        return sum;
+    }
+
+    /**
+     * @return the serial number of the date, 0 for null dates
+     */
+    private static long serial(final Date d) {
+        return d == null || d.isNull() ? 0 : d.serialNumber();
+    }
+
+    private static double isda(final long s1, final long s2) {
+        final int y1 = DateSerials.year(s1);
+        final int y2 = DateSerials.year(s2);
+        final double dib1 = DateSerials.isLeap(y1) ? 366.0 : 365.0;
+        final double dib2 = DateSerials.isLeap(y2) ? 366.0 : 365.0;
+
+        double sum = y2 - y1 - 1;
+
+        // Days from start to starting of following year
+        sum += (dib1 - DateSerials.dayOfYear(s1) + 1) / dib1;
+        // Days from beginning of year to the endDate
+        sum += (DateSerials.dayOfYear(s2) - 1) / dib2;
+        return sum;
+    }
+
+    private static double afb(final long s1, final long s2) {
+        long newD2 = s2;
+        long temp = s2;
+        double sum = 0.0;
+        while (temp > s1) {
+            temp = DateSerials.add(newD2, -1, TimeUnit.Years);
+            if (DateSerials.dayOfMonth(temp) == 28 && DateSerials.month(temp) == 2 && DateSerials.isLeap(DateSerials.year(temp)))
+                temp += 1;
+            if (temp >= s1) {
+                sum += 1.0;
+                newD2 = temp;
+            }
+        }
+
+        double den = 365.0;
+
+        final int y2 = DateSerials.year(newD2);
+        final int y1 = DateSerials.year(s1);
+        if (DateSerials.isLeap(y2)) {
+            final long feb29 = DateSerials.fromDMY(29, 2, y2);
+            if (newD2 > feb29 && s1 <= feb29)
+                den += 1.0;
+        } else if (DateSerials.isLeap(y1)) {
+            final long feb29 = DateSerials.fromDMY(29, 2, y1);
+            if (newD2 > feb29 && s1 <= feb29)
+                den += 1.0;
+        }
+        return sum + (newD2 - s1) / den;
     }
 
-    
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import org.mafinlib.time.calendars.UnitedStates;
+
+
+/**
+ * Compares the compiled business day bitmap of the {@link UnitedStates} calendars with
+ * the evaluation of their holiday rules.
+ */
+public class CalendarBitmapBenchmark {
+
+	private static final int ROUNDS = 10;
+	private static final int REPETITIONS = 5;
+
+	public static void main(String[] args) {
+
+		System.out.println("Testing the compiled business day bitmap");
+
+		final long min = DateSerials.minimumSerialNumber();
+		final long max = DateSerials.maximumSerialNumber() - 40;
+
+		for (final UnitedStates.Market market : UnitedStates.Market.values()) {
+			final Calendar rules = new UnitedStates(market);
+			final Calendar compiled = new UnitedStates(market).compile();
+
+			final Date[] dates = new Date[(int) (max - min + 1)];
+			for (int i = 0; i < dates.length; i++) {
+				dates[i] = new Date(min + i);
+			}
+
+			System.out.println(market + ": checking the bitmap against the holiday rules");
+			boolean isEqual = true;
+			for (final Date d : dates) {
+				isEqual &= rules.isBusinessDay(d) == compiled.isBusinessDay(d)
+						&& rules.isHoliday(d) == compiled.isHoliday(d)
+						&& rules.isEndOfMonth(d) == compiled.isEndOfMonth(d);
+			}
+			System.out.println(isEqual);
+
+			System.out.println(market + ": checking user defined holidays");
+			final Date christmas = new Date(25, Month.December, 2017);
+			final Date businessDay = new Date(27, Month.December, 2017);
+			rules.removeHoliday(christmas);
+			compiled.removeHoliday(christmas);
+			rules.addHoliday(businessDay);
+			compiled.addHoliday(businessDay);
+			isEqual = true;
+			for (final Date d : dates) {
+				isEqual &= rules.isBusinessDay(d) == compiled.isBusinessDay(d)
+						&& rules.isEndOfMonth(d) == compiled.isEndOfMonth(d);
+			}
+			System.out.println(isEqual);
+
+			long checksum = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				for (int r = 0; r < REPETITIONS; r++) {
+					checksum += count(rules, dates);
+				}
+				final double rulesTime = (System.nanoTime() - start) / (double) (REPETITIONS * dates.length);
+
+				start = System.nanoTime();
+				for (int r = 0; r < REPETITIONS; r++) {
+					checksum -= count(compiled, dates);
+				}
+				final double compiledTime = (System.nanoTime() - start) / (double) (REPETITIONS * dates.length);
+
+				System.out.printf("round %2d: rules %7.2f ns/date, bitmap %7.2f ns/date%n", round, rulesTime, compiledTime);
+			}
+			System.out.println("Both calendars return the same business days");
+			System.out.println(checksum == 0);
+		}
+	}
+
+	private static long count(final Calendar c, final Date[] dates) {
+		long sum = 0;
+		for (final Date d : dates) {
+			if (c.isBusinessDay(d))
+				sum++;
+			if (c.isHoliday(d))
+				sum += 2;
+			if (c.isEndOfMonth(d))
+				sum += 4;
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,87 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+
+/**
+ * Compares the table driven inspectors of {@link DateSerials} with the former
+ * arithmetic decomposition (guess-and-loop month search, year recomputed by every
+ * inspector) over the whole allowed range of serial numbers.
+ */
+public class DateSerialsBenchmark {
+
+	private static final int ROUNDS = 10;
+	private static final int REPETITIONS = 50;
+
+	public static void main(String[] args) {
+
+		System.out.println("Testing the table driven date decomposition");
+
+		final long min = DateSerials.minimumSerialNumber();
+		final long max = DateSerials.maximumSerialNumber();
+
+		System.out.println("Checking the tables against the arithmetic decomposition");
+		boolean isEqual = true;
+		for (long s = min; s <= max; s++) {
+			isEqual &= DateSerials.year(s) == DateSerials.computeYear(s)
+					&& DateSerials.month(s) == DateSerials.computeMonth(s)
+					&& DateSerials.dayOfYear(s) == legacyDayOfYear(s)
+					&& DateSerials.dayOfMonth(s) == legacyDayOfMonth(s);
+		}
+		System.out.println(isEqual);
+
+		long checksum = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int r = 0; r < REPETITIONS; r++) {
+				checksum += legacy(min, max);
+			}
+			final double legacyTime = (System.nanoTime() - start) / (double) (REPETITIONS * (max - min + 1));
+
+			start = System.nanoTime();
+			for (int r = 0; r < REPETITIONS; r++) {
+				checksum -= tables(min, max);
+			}
+			final double tablesTime = (System.nanoTime() - start) / (double) (REPETITIONS * (max - min + 1));
+
+			System.out.printf("round %2d: arithmetic %6.2f ns/date, tables %6.2f ns/date%n", round, legacyTime, tablesTime);
+		}
+		System.out.println("Both implementations return the same fields");
+		System.out.println(checksum == 0);
+	}
+
+	private static long legacy(final long min, final long max) {
+		long sum = 0;
+		for (long s = min; s <= max; s++) {
+			sum += DateSerials.weekday(s) + legacyDayOfMonth(s) + DateSerials.computeMonth(s) + DateSerials.computeYear(s);
+		}
+		return sum;
+	}
+
+	private static long tables(final long min, final long max) {
+		long sum = 0;
+		for (long s = min; s <= max; s++) {
+			sum += DateSerials.weekday(s) + DateSerials.dayOfMonth(s) + DateSerials.month(s) + DateSerials.year(s);
+		}
+		return sum;
+	}
+
+	// dayOfYear() - monthOffset(month().value(), isLeap(year())) as formerly done by Date
+	private static int legacyDayOfMonth(final long s) {
+		return legacyDayOfYear(s) - DateSerials.monthOffset(DateSerials.computeMonth(s), DateSerials.isLeap(DateSerials.computeYear(s)));
+	}
+
+	private static int legacyDayOfYear(final long s) {
+		return (int) (s - DateSerials.yearOffset(DateSerials.computeYear(s)));
+	}
+
+}
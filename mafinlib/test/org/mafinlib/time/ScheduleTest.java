@@ -0,0 +1,66 @@
+/* Copyright (C) 2017 Alessandro Gnoatto
+ *
+ * MaFinLib extends/is based on/combines features/designs/code excerpts from
+ *
+ * Quantlib https://github.com/lballabio/QuantLib
+ * JQuantlib a port of Quantlib to Java: https://github.com/frgomes/jquantlib
+ * Finmath https://github.com/finmath/finmath-lib
+ *
+ * When applicable, the original copyright notice of the libraries above follows this notice.
+ *
+ */
+package org.mafinlib.time;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.mafinlib.time.calendars.UnitedStates;
+
+
+/**
+ * Checks the dates generated by {@link Schedule}, in particular the end of month rule.
+ */
+public class ScheduleTest {
+
+	public static void main(String[] args) {
+
+		System.out.println("Testing the schedule generation");
+
+		final Calendar calendar = new UnitedStates(UnitedStates.Market.SETTLEMENT);
+		final Date effective = new Date(31, Month.January, 2020);
+		final Date termination = new Date(15, Month.March, 2021);
+
+		System.out.println("Zero rule with end of month: the dates are not moved to the end of the month");
+		Schedule s = new Schedule(effective, termination, new Period(6, TimeUnit.Months), calendar,
+				BusinessDayConvention.Following, BusinessDayConvention.Following,
+				DateGenerationRule.Zero, true);
+		System.out.println(s.dates());
+		System.out.println(s.dates().equals(Arrays.asList(effective, termination)) && !s.endOfMonth());
+
+		System.out.println("Null tenor with end of month: same as the Zero rule");
+		s = new Schedule(effective, termination, null, calendar,
+				BusinessDayConvention.Following, BusinessDayConvention.Following,
+				DateGenerationRule.Forward, true);
+		System.out.println(s.dates());
+		System.out.println(s.dates().equals(Arrays.asList(effective, termination))
+				&& s.rule() == DateGenerationRule.Zero && !s.endOfMonth());
+
+		System.out.println("Forward rule with end of month: regular dates are kept at the end of the month");
+		s = new Schedule(effective, new Date(31, Month.January, 2021), new Period(3, TimeUnit.Months), calendar,
+				BusinessDayConvention.Unadjusted, BusinessDayConvention.Unadjusted,
+				DateGenerationRule.Forward, true);
+		final List<Date> expected = Arrays.asList(effective,
+				new Date(30, Month.April, 2020), new Date(31, Month.July, 2020),
+				new Date(31, Month.October, 2020), new Date(31, Month.January, 2021));
+		System.out.println(s.dates());
+		System.out.println(s.dates().equals(expected) && s.endOfMonth());
+
+		System.out.println("Weekly tenor with end of month: the flag is ignored");
+		s = new Schedule(effective, new Date(28, Month.February, 2020), new Period(2, TimeUnit.Weeks), calendar,
+				BusinessDayConvention.Unadjusted, BusinessDayConvention.Unadjusted,
+				DateGenerationRule.Forward, true);
+		System.out.println(s.dates());
+		System.out.println(!s.endOfMonth());
+	}
+
+}